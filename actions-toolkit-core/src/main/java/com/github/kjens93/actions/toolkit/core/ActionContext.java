@@ -0,0 +1,455 @@
+package com.github.kjens93.actions.toolkit.core;
+
+import lombok.NonNull;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * The environment a single action execution runs in: its environment variables, the stream its
+ * commands are written to, the state it has saved and the secrets it has registered.
+ *
+ * <p>{@link Core} delegates to the context bound to the current thread (see {@link
+ * Core#withContext(ActionContext, Core.TRunnable)}), falling back to a context backed by {@link
+ * System#getenv()} and {@link System#out}. Hosts that run many actions in one JVM can give each
+ * execution its own context so that executions on different threads do not see each other's
+ * inputs or output.
+ */
+public final class ActionContext {
+
+  private final Map<String, String> env;
+  private final Supplier<PrintStream> out;
+  private final IntConsumer exitHandler;
+  private final LogThrottle logThrottle;
+  private final Map<String, String> state = new ConcurrentHashMap<>();
+  private final Set<String> secrets = ConcurrentHashMap.newKeySet();
+  private volatile int exitCode = Core.ExitCode.SUCCESS;
+
+  private ActionContext(
+      Map<String, String> env,
+      Supplier<PrintStream> out,
+      IntConsumer exitHandler,
+      LogThrottle logThrottle) {
+    this.env = env;
+    this.out = out;
+    this.exitHandler = exitHandler;
+    this.logThrottle = logThrottle;
+  }
+
+  // -----------------------------------------------------------------------
+  // Factories
+  // -----------------------------------------------------------------------
+
+  /**
+   * Creates a context backed by the process environment and {@link System#out}. Both are looked up
+   * on every call, and {@link #setFailed(String)} exits the JVM.
+   *
+   * @return the process-wide context
+   */
+  static ActionContext system() {
+    return new ActionContext(System.getenv(), () -> System.out, System::exit, null);
+  }
+
+  /**
+   * Starts building an isolated context.
+   *
+   * @return a new builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  // -----------------------------------------------------------------------
+  // Accessors
+  // -----------------------------------------------------------------------
+
+  /** Gets the stream that commands and log lines for this context are written to. */
+  public PrintStream getOut() {
+    return out.get();
+  }
+
+  /** Gets the exit code recorded for this context; {@link Core.ExitCode#SUCCESS} by default. */
+  public int getExitCode() {
+    return exitCode;
+  }
+
+  /** Gets an unmodifiable view of the secrets registered through this context. */
+  public Set<String> getSecrets() {
+    return Collections.unmodifiableSet(secrets);
+  }
+
+  /** Gets an unmodifiable view of the state saved through this context. */
+  public Map<String, String> getSavedState() {
+    return Collections.unmodifiableMap(state);
+  }
+
+  // -----------------------------------------------------------------------
+  // Variables
+  // -----------------------------------------------------------------------
+
+  /**
+   * Sets env variable for future actions in the job
+   *
+   * @param name the name of the variable to set
+   * @param val the value of the variable
+   * @see Core#exportVariable(String, Object)
+   */
+  public void exportVariable(@NonNull String name, @NonNull Object val) {
+    Map<String, Object> props = new HashMap<>();
+    props.put("name", name);
+    issueCommand("set-env", props, val);
+  }
+
+  /**
+   * Gets the value of an environment variable. The value is also trimmed.
+   *
+   * @param name name of the variable to get
+   * @param required whether the variable is required; if required and not present, will throw
+   * @return string
+   */
+  public String getVariable(@NonNull String name, boolean required) {
+    String val = Optional.ofNullable(env.get(name)).orElse("");
+    if (required && StringUtils.isBlank(val)) {
+      throw new IllegalStateException("Variable required and not supplied: " + name);
+    }
+    return val.trim();
+  }
+
+  /**
+   * Gets the value of an environment variable. The value is also trimmed.
+   *
+   * @param name name of the variable to get
+   * @return string
+   */
+  public String getVariable(@NonNull String name) {
+    return getVariable(name, false);
+  }
+
+  /**
+   * Registers a secret which will get masked from logs
+   *
+   * @param secret value of the secret
+   */
+  public void setSecret(@NonNull String secret) {
+    secrets.add(secret);
+    issueCommand("add-mask", secret);
+  }
+
+  /**
+   * Prepends inputPath to the PATH (for future actions)
+   *
+   * @param inputPath the string to be prepended to the PATH
+   * @see Core#addPath(String)
+   */
+  public void addPath(@NonNull String inputPath) {
+    issueCommand("add-path", inputPath);
+  }
+
+  /**
+   * Gets the value of an input. The value is also trimmed.
+   *
+   * @param name name of the input to get
+   * @param required whether the input is required; if required and not present, will throw
+   * @return string
+   */
+  public String getInput(@NonNull String name, boolean required) {
+    String key = "INPUT_" + name.replaceAll(" ", "_").toUpperCase();
+    String val = Optional.ofNullable(env.get(key)).orElse("");
+    if (required && StringUtils.isBlank(val)) {
+      throw new IllegalStateException("Input required and not supplied: " + name);
+    }
+    return val.trim();
+  }
+
+  /**
+   * Gets the value of an input. The value is also trimmed.
+   *
+   * @param name name of the input to get
+   * @return string
+   */
+  public String getInput(@NonNull String name) {
+    return getInput(name, false);
+  }
+
+  /**
+   * Sets the value of an output.
+   *
+   * @param name name of the output to set
+   * @param value value to store
+   */
+  public void setOutput(@NonNull String name, @NonNull Object value) {
+    Map<String, Object> props = new HashMap<>();
+    props.put("name", name);
+    issueCommand("set-output", props, value);
+  }
+
+  // -----------------------------------------------------------------------
+  // Results
+  // -----------------------------------------------------------------------
+
+  /**
+   * Sets the action status to failed. The failure is recorded in {@link #getExitCode()} and handed
+   * to the context's exit handler. The error is never held back by the {@link LogThrottle}.
+   *
+   * @param message add error issue message
+   */
+  public void setFailed(@NonNull String message) {
+    flushSuppressed();
+    emit("error", message);
+    exitCode = Core.ExitCode.FAILURE;
+    exitHandler.accept(Core.ExitCode.FAILURE);
+  }
+
+  // -----------------------------------------------------------------------
+  // Logging Commands
+  // -----------------------------------------------------------------------
+
+  /** Gets whether Actions Step Debug is on or not */
+  public boolean isDebug() {
+    return Objects.equals(env.get("RUNNER_DEBUG"), "1");
+  }
+
+  /**
+   * Writes debug message to user log
+   *
+   * @param message debug message
+   */
+  public void debug(@NonNull String message) {
+    log("debug", message);
+  }
+
+  /**
+   * Adds an error issue
+   *
+   * @param message error issue message
+   */
+  public void error(@NonNull String message) {
+    log("error", message);
+  }
+
+  /**
+   * Adds an warning issue
+   *
+   * @param message warning issue message
+   */
+  public void warning(@NonNull String message) {
+    log("warning", message);
+  }
+
+  /**
+   * Writes info to log with console.log.
+   *
+   * @param message info message
+   */
+  public void info(@NonNull String message) {
+    log("info", message);
+  }
+
+  /**
+   * Writes the summaries of any log lines held back by this context's {@link LogThrottle}. Call
+   * this before the action ends; it does nothing if the context has no throttle.
+   */
+  public void flushSuppressed() {
+    if (logThrottle != null) {
+      logThrottle.flush(this::emit);
+    }
+  }
+
+  /**
+   * Begin an output group.
+   *
+   * <p>Output until the next `groupEnd` will be foldable in this group
+   *
+   * @param name The name of the output group
+   */
+  public void startGroup(@NonNull String name) {
+    issueCommand("group", name);
+  }
+
+  /** End an output group. */
+  public void endGroup() {
+    issueCommand("endgroup", "");
+  }
+
+  /**
+   * Wrap a function call in a group.
+   *
+   * <p>Returns the same type as the function itself.
+   *
+   * @param name The name of the group
+   * @param fn The function to wrap in the group
+   */
+  public <T, E extends Throwable> T group(@NonNull String name, @NonNull Core.TSupplier<T, E> fn)
+      throws E {
+    startGroup(name);
+    try {
+      return fn.get();
+    } finally {
+      endGroup();
+    }
+  }
+
+  /**
+   * Wrap a function call in a group.
+   *
+   * @param name The name of the group
+   * @param fn The function to wrap in the group
+   */
+  public <E extends Throwable> void group(@NonNull String name, @NonNull Core.TRunnable<E> fn)
+      throws E {
+    startGroup(name);
+    try {
+      fn.run();
+    } finally {
+      endGroup();
+    }
+  }
+
+  // -----------------------------------------------------------------------
+  // Wrapper action state
+  // -----------------------------------------------------------------------
+
+  /**
+   * Saves state for current action, the state can only be retrieved by this action's post job
+   * execution.
+   *
+   * @param name name of the state to store
+   * @param value value to store
+   */
+  public void saveState(@NonNull String name, @NonNull Object value) {
+    state.put(name, value.toString());
+    Map<String, Object> props = new HashMap<>();
+    props.put("name", name);
+    issueCommand("save-state", props, value);
+  }
+
+  /**
+   * Gets the value of an state set by this action's main execution.
+   *
+   * @param name name of the state to get
+   * @return string
+   */
+  public String getState(@NonNull String name) {
+    return Optional.ofNullable(env.get("STATE_" + name)).orElse("");
+  }
+
+  // -----------------------------------------------------------------------
+  // Internals
+  // -----------------------------------------------------------------------
+
+  private void issueCommand(String command, Map<String, Object> properties, Object message) {
+    Command.issueCommand(getOut(), command, properties, message);
+  }
+
+  private void issueCommand(String command, String message) {
+    issueCommand(command, Collections.emptyMap(), message);
+  }
+
+  private void log(String level, String message) {
+    if (logThrottle != null) {
+      logThrottle.submit(level, message, this::emit);
+    } else {
+      emit(level, message);
+    }
+  }
+
+  private void emit(String level, String message) {
+    if (level.equals("info")) {
+      getOut().println(message);
+    } else {
+      issueCommand(level, message);
+    }
+  }
+
+  // -----------------------------------------------------------------------
+  // Builder
+  // -----------------------------------------------------------------------
+
+  /** Builds an isolated {@link ActionContext}. */
+  public static final class Builder {
+
+    private final Map<String, String> env = new HashMap<>();
+    private PrintStream out = System.out;
+    private IntConsumer exitHandler = code -> {};
+    private LogThrottle.Builder logThrottle;
+
+    private Builder() {}
+
+    /**
+     * Adds an environment variable, such as an {@code INPUT_*} or {@code STATE_*} value.
+     *
+     * @param name the name of the variable
+     * @param value the value of the variable
+     * @return this builder
+     */
+    public Builder env(@NonNull String name, @NonNull String value) {
+      this.env.put(name, value);
+      return this;
+    }
+
+    /**
+     * Adds all of the given environment variables.
+     *
+     * @param env the variables to add
+     * @return this builder
+     */
+    public Builder env(@NonNull Map<String, String> env) {
+      this.env.putAll(env);
+      return this;
+    }
+
+    /**
+     * Sets the stream that commands and log lines are written to. Defaults to {@link System#out}.
+     *
+     * @param out the output sink
+     * @return this builder
+     */
+    public Builder out(@NonNull PrintStream out) {
+      this.out = out;
+      return this;
+    }
+
+    /**
+     * Sets what happens when the action fails. Defaults to only recording the exit code, so that a
+     * failing action does not take the hosting JVM down with it.
+     *
+     * @param exitHandler receives the exit code passed to {@link ActionContext#setFailed(String)}
+     * @return this builder
+     */
+    public Builder exitHandler(@NonNull IntConsumer exitHandler) {
+      this.exitHandler = exitHandler;
+      return this;
+    }
+
+    /**
+     * Sets the throttle that debug, warning, error and info lines pass through before they are
+     * encoded. Every context built gets its own throttle from the given settings. Defaults to
+     * none, so every line is written.
+     *
+     * @param logThrottle the throttle settings
+     * @return this builder
+     */
+    public Builder logThrottle(@NonNull LogThrottle.Builder logThrottle) {
+      this.logThrottle = logThrottle;
+      return this;
+    }
+
+    public ActionContext build() {
+      PrintStream sink = this.out;
+      return new ActionContext(
+          Collections.unmodifiableMap(new HashMap<>(env)),
+          () -> sink,
+          exitHandler,
+          logThrottle != null ? logThrottle.build() : null);
+    }
+  }
+}
@@ -3,6 +3,7 @@ package com.github.kjens93.actions.toolkit.core;
 import lombok.NonNull;
 import org.apache.commons.lang3.StringUtils;
 
+import java.io.PrintStream;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Optional;
@@ -60,10 +61,15 @@ final class Command {
     return String.join("=", key, escapeProperty(val));
   }
 
-  public static void issueCommand(String command, Map<String, Object> properties, Object message) {
+  public static void issueCommand(
+      @NonNull PrintStream out, String command, Map<String, Object> properties, Object message) {
     String msg = Optional.ofNullable(message).map(Object::toString).orElse("");
     Command cmd = new Command(command, properties, msg);
-    System.out.println(cmd.toString());
+    out.println(cmd.toString());
+  }
+
+  public static void issueCommand(String command, Map<String, Object> properties, Object message) {
+    issueCommand(System.out, command, properties, message);
   }
 
   public static void issueCommand(String command, String message) {
@@ -1,16 +1,12 @@
 package com.github.kjens93.actions.toolkit.core;
 
 import lombok.NonNull;
-import org.apache.commons.lang3.StringUtils;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Objects;
-import java.util.Optional;
+public final class Core {
 
-import static com.github.kjens93.actions.toolkit.core.Command.issueCommand;
+  private static final ActionContext SYSTEM_CONTEXT = ActionContext.system();
 
-public final class Core {
+  private static final ThreadLocal<ActionContext> CURRENT_CONTEXT = new ThreadLocal<>();
 
   // -----------------------------------------------------------------------
   // Constructors (hidden to enforce static usage)
@@ -18,6 +14,63 @@ public final class Core {
 
   private Core() {}
 
+  // -----------------------------------------------------------------------
+  // Context
+  // -----------------------------------------------------------------------
+
+  /**
+   * Gets the context the static methods of this class delegate to: the one bound to the current
+   * thread by {@code withContext}, or else the context backed by the process environment and
+   * {@link System#out}.
+   *
+   * @return the current context
+   */
+  public static ActionContext context() {
+    ActionContext context = CURRENT_CONTEXT.get();
+    return context != null ? context : SYSTEM_CONTEXT;
+  }
+
+  /**
+   * Runs a function with the given context bound to the current thread, so that static calls on
+   * this class made by the function are served by that context.
+   *
+   * <p>Returns the same type as the function itself.
+   *
+   * @param context The context to bind
+   * @param fn The function to run
+   */
+  public static <T, E extends Throwable> T withContext(
+      @NonNull ActionContext context, @NonNull TSupplier<T, E> fn) throws E {
+    ActionContext previous = CURRENT_CONTEXT.get();
+    CURRENT_CONTEXT.set(context);
+    try {
+      return fn.get();
+    } finally {
+      if (previous != null) {
+        CURRENT_CONTEXT.set(previous);
+      } else {
+        CURRENT_CONTEXT.remove();
+      }
+    }
+  }
+
+  /**
+   * Runs a function with the given context bound to the current thread, so that static calls on
+   * this class made by the function are served by that context.
+   *
+   * @param context The context to bind
+   * @param fn The function to run
+   */
+  public static <E extends Throwable> void withContext(
+      @NonNull ActionContext context, @NonNull TRunnable<E> fn) throws E {
+    withContext(
+        context,
+        () -> {
+          fn.run();
+          return null;
+        });
+  }
+
   // -----------------------------------------------------------------------
   // Variables
   // -----------------------------------------------------------------------
@@ -34,9 +87,7 @@ public final class Core {
    *     actions. This is slightly different behavior from the JavaScript implementation.
    */
   public static void exportVariable(@NonNull String name, @NonNull Object val) {
-    Map<String, Object> props = new HashMap<>();
-    props.put("name", name);
-    issueCommand("set-env", props, val);
+    context().exportVariable(name, val);
   }
 
   /**
@@ -47,11 +98,7 @@ public final class Core {
    * @return string
    */
   public static String getVariable(@NonNull String name, boolean required) {
-    String val = Optional.ofNullable(System.getenv(name)).orElse("");
-    if (required && StringUtils.isBlank(val)) {
-      throw new IllegalStateException("Variable required and not supplied: " + name);
-    }
-    return val.trim();
+    return context().getVariable(name, required);
   }
 
   /**
@@ -70,7 +117,7 @@ public final class Core {
    * @param secret value of the secret
    */
   public static void setSecret(@NonNull String secret) {
-    issueCommand("add-mask", secret);
+    context().setSecret(secret);
   }
 
   /**
@@ -84,7 +131,7 @@ public final class Core {
    *     the JavaScript implementation.
    */
   public static void addPath(@NonNull String inputPath) {
-    issueCommand("add-path", inputPath);
+    context().addPath(inputPath);
   }
 
   /**
@@ -95,12 +142,7 @@ public final class Core {
    * @return string
    */
   public static String getInput(@NonNull String name, boolean required) {
-    String key = "INPUT_" + name.replaceAll(" ", "_").toUpperCase();
-    String val = Optional.ofNullable(System.getenv(key)).orElse("");
-    if (required && StringUtils.isBlank(val)) {
-      throw new IllegalStateException("Input required and not supplied: " + name);
-    }
-    return val.trim();
+    return context().getInput(name, required);
   }
 
   /**
@@ -120,9 +162,7 @@ public final class Core {
    * @param value value to store
    */
   public static void setOutput(@NonNull String name, @NonNull Object value) {
-    Map<String, Object> props = new HashMap<>();
-    props.put("name", name);
-    issueCommand("set-output", props, value);
+    context().setOutput(name, value);
   }
 
   // -----------------------------------------------------------------------
@@ -135,8 +175,7 @@ public final class Core {
    * @param message add error issue message
    */
   public static void setFailed(@NonNull String message) {
-    error(message);
-    System.exit(ExitCode.FAILURE);
+    context().setFailed(message);
   }
 
   // -----------------------------------------------------------------------
@@ -145,7 +184,7 @@ public final class Core {
 
   /** Gets whether Actions Step Debug is on or not */
   public static boolean isDebug() {
-    return Objects.equals(System.getenv("RUNNER_DEBUG"), "1");
+    return context().isDebug();
   }
 
   /**
@@ -154,7 +193,7 @@ public final class Core {
    * @param message debug message
    */
   public static void debug(@NonNull String message) {
-    issueCommand("debug", message);
+    context().debug(message);
   }
 
   /**
@@ -163,7 +202,7 @@ public final class Core {
    * @param message error issue message
    */
   public static void error(@NonNull String message) {
-    issueCommand("error", message);
+    context().error(message);
   }
 
   /**
@@ -172,7 +211,7 @@ public final class Core {
    * @param message warning issue message
    */
   public static void warning(@NonNull String message) {
-    issueCommand("warning", message);
+    context().warning(message);
   }
 
   /**
@@ -181,7 +220,14 @@ public final class Core {
    * @param message info message
    */
   public static void info(@NonNull String message) {
-    System.out.println(message);
+    context().info(message);
+  }
+
+  /**
+   * Writes the summaries of any log lines held back by the current context's {@link LogThrottle}.
+   */
+  public static void flushSuppressed() {
+    context().flushSuppressed();
   }
 
   /**
@@ -192,12 +238,12 @@ public final class Core {
    * @param name The name of the output group
    */
   public static void startGroup(@NonNull String name) {
-    issueCommand("group", name);
+    context().startGroup(name);
   }
 
   /** End an output group. */
   public static void endGroup() {
-    issueCommand("endgroup");
+    context().endGroup();
   }
 
   /**
@@ -210,12 +256,7 @@ public final class Core {
    */
   public static <T, E extends Throwable> T group(@NonNull String name, @NonNull TSupplier<T, E> fn)
       throws E {
-    startGroup(name);
-    try {
-      return fn.get();
-    } finally {
-      endGroup();
-    }
+    return context().group(name, fn);
   }
 
   /**
@@ -228,12 +269,7 @@ public final class Core {
    */
   public static <E extends Throwable> void group(@NonNull String name, @NonNull TRunnable<E> fn)
       throws E {
-    startGroup(name);
-    try {
-      fn.run();
-    } finally {
-      endGroup();
-    }
+    context().group(name, fn);
   }
 
   // -----------------------------------------------------------------------
@@ -248,9 +284,7 @@ public final class Core {
    * @param value value to store
    */
   public static void saveState(@NonNull String name, @NonNull Object value) {
-    Map<String, Object> props = new HashMap<>();
-    props.put("name", name);
-    issueCommand("save-state", props, value);
+    context().saveState(name, value);
   }
 
   /**
@@ -260,7 +294,7 @@ public final class Core {
    * @return string
    */
   public static String getState(@NonNull String name) {
-    return Optional.ofNullable(System.getenv("STATE_" + name)).orElse("");
+    return context().getState(name);
   }
 
   // -----------------------------------------------------------------------
@@ -0,0 +1,274 @@
+package com.github.kjens93.actions.toolkit.core;
+
+import lombok.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Suppresses repetitive log lines before they are encoded and written.
+ *
+ * <p>For each log level ({@code debug}, {@code warning}, {@code error} and {@code info}) the
+ * throttle remembers recently logged messages in a fixed-size table indexed by the message hash.
+ * Repeats of a remembered message are not written; instead, a {@code "N similar messages
+ * suppressed"} summary is written after every {@code summaryEvery} repeats. A message is only
+ * remembered for the repeat window after it was first seen, so occasional lines such as progress
+ * messages are always written. A message that expires, or that is pushed out of the table by
+ * another one with the same slot, is summarized right away and will be written again the next
+ * time it occurs.
+ *
+ * <p>Each level can also be given a token-bucket rate limit. Lines over the limit are dropped and
+ * counted, and the count is written before the next line the limit lets through. Repeat
+ * summaries share the limit; one that is refused keeps its count for the next attempt, so no
+ * repeat goes unreported.
+ *
+ * <p>Configure a throttle with {@link ActionContext.Builder#logThrottle(LogThrottle.Builder)}.
+ * Each context owns its throttle, so contexts never see or block on each other's counts. Call
+ * {@link ActionContext#flushSuppressed()} before the action ends so that pending counts are not
+ * lost.
+ */
+public final class LogThrottle {
+
+  private final int tableSize;
+  private final int summaryEvery;
+  private final long windowNanos;
+  private final LongSupplier clock;
+  private final Map<String, TokenBucket> buckets;
+  private final Map<String, Recent[]> recent = new HashMap<>();
+
+  private LogThrottle(Builder builder) {
+    this.tableSize = builder.tableSize;
+    this.summaryEvery = builder.summaryEvery;
+    this.windowNanos = builder.windowNanos;
+    this.clock = builder.clock;
+    this.buckets = new HashMap<>();
+    builder.rateLimits.forEach(
+        (level, limit) -> buckets.put(level, new TokenBucket(limit, builder.clock)));
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Passes a log line through the throttle.
+   *
+   * @param level the log level, which is the command name or {@code info}
+   * @param message the message
+   * @param emit receives the level and text of every line that should be written
+   */
+  synchronized void submit(String level, String message, BiConsumer<String, String> emit) {
+    Recent[] table = recent.computeIfAbsent(level, l -> new Recent[tableSize]);
+    int slot = Math.floorMod(message.hashCode(), tableSize);
+    Recent entry = table[slot];
+    long now = clock.getAsLong();
+    if (entry != null && entry.message.equals(message) && now - entry.firstSeen < windowNanos) {
+      if (++entry.suppressed >= summaryEvery && tryEmit(level, summary(entry), emit)) {
+        entry.suppressed = 0;
+      }
+      return;
+    }
+    if (entry != null && entry.suppressed > 0 && !tryEmit(level, summary(entry), emit)) {
+      // The entry is being evicted, so its repeats are reported with the rate limit's count
+      buckets.get(level).dropped += entry.suppressed;
+    }
+    table[slot] = new Recent(message, now);
+    if (!tryEmit(level, message, emit)) {
+      buckets.get(level).dropped++;
+    }
+  }
+
+  /**
+   * Writes the summaries of every pending count, bypassing the rate limits.
+   *
+   * @param emit receives the level and text of every line that should be written
+   */
+  synchronized void flush(BiConsumer<String, String> emit) {
+    buckets.forEach(
+        (level, bucket) -> {
+          if (bucket.dropped > 0) {
+            emit.accept(level, bucket.summary(level));
+            bucket.dropped = 0;
+          }
+        });
+    recent.forEach(
+        (level, table) -> {
+          for (Recent entry : table) {
+            if (entry != null && entry.suppressed > 0) {
+              emit.accept(level, summary(entry));
+              entry.suppressed = 0;
+            }
+          }
+        });
+  }
+
+  // Writes the text if the level's rate limit allows it, and reports whether it did
+  private boolean tryEmit(String level, String text, BiConsumer<String, String> emit) {
+    TokenBucket bucket = buckets.get(level);
+    if (bucket != null) {
+      if (!bucket.tryAcquire()) {
+        return false;
+      }
+      if (bucket.dropped > 0) {
+        emit.accept(level, bucket.summary(level));
+        bucket.dropped = 0;
+      }
+    }
+    emit.accept(level, text);
+    return true;
+  }
+
+  private static String summary(Recent entry) {
+    return entry.suppressed + " similar messages suppressed: " + entry.message;
+  }
+
+  // -----------------------------------------------------------------------
+  // State
+  // -----------------------------------------------------------------------
+
+  private static final class Recent {
+
+    final String message;
+    final long firstSeen;
+    int suppressed;
+
+    Recent(String message, long firstSeen) {
+      this.message = message;
+      this.firstSeen = firstSeen;
+    }
+  }
+
+  private static final class TokenBucket {
+
+    final double perNano;
+    final double capacity;
+    final LongSupplier clock;
+    double tokens;
+    long refilledAt;
+    long dropped;
+
+    TokenBucket(RateLimit limit, LongSupplier clock) {
+      this.perNano = limit.perSecond / TimeUnit.SECONDS.toNanos(1);
+      this.capacity = limit.burst;
+      this.clock = clock;
+      this.tokens = limit.burst;
+      this.refilledAt = clock.getAsLong();
+    }
+
+    boolean tryAcquire() {
+      long now = clock.getAsLong();
+      tokens = Math.min(capacity, tokens + (now - refilledAt) * perNano);
+      refilledAt = now;
+      if (tokens < 1) {
+        return false;
+      }
+      tokens--;
+      return true;
+    }
+
+    String summary(String level) {
+      return dropped + " " + level + " messages suppressed by rate limit";
+    }
+  }
+
+  private static final class RateLimit {
+
+    final double perSecond;
+    final int burst;
+
+    RateLimit(double perSecond, int burst) {
+      this.perSecond = perSecond;
+      this.burst = burst;
+    }
+  }
+
+  // -----------------------------------------------------------------------
+  // Builder
+  // -----------------------------------------------------------------------
+
+  /** Configures the {@link LogThrottle} of each context it is given to. */
+  public static final class Builder {
+
+    private final Map<String, RateLimit> rateLimits = new HashMap<>();
+    private int tableSize = 256;
+    private int summaryEvery = 100;
+    private long windowNanos = TimeUnit.SECONDS.toNanos(5);
+    private LongSupplier clock = System::nanoTime;
+
+    private Builder() {}
+
+    /**
+     * Sets how many recent messages are remembered per level. Defaults to 256.
+     *
+     * @param tableSize the number of slots in each level's table
+     * @return this builder
+     */
+    public Builder recentMessages(int tableSize) {
+      if (tableSize < 1) {
+        throw new IllegalArgumentException("tableSize must be positive: " + tableSize);
+      }
+      this.tableSize = tableSize;
+      return this;
+    }
+
+    /**
+     * Sets how many repeats of a message are suppressed before a summary is written. Defaults to
+     * 100.
+     *
+     * @param summaryEvery the number of repeats per summary
+     * @return this builder
+     */
+    public Builder summaryEvery(int summaryEvery) {
+      if (summaryEvery < 1) {
+        throw new IllegalArgumentException("summaryEvery must be positive: " + summaryEvery);
+      }
+      this.summaryEvery = summaryEvery;
+      return this;
+    }
+
+    /**
+     * Sets how long a message is remembered after it is first seen. Once the window has passed,
+     * the next occurrence is written as a new message. Defaults to 5 seconds.
+     *
+     * @param duration the length of the window
+     * @param unit the unit of the duration
+     * @return this builder
+     */
+    public Builder repeatWindow(long duration, @NonNull TimeUnit unit) {
+      if (duration < 1) {
+        throw new IllegalArgumentException("repeatWindow must be positive: " + duration);
+      }
+      this.windowNanos = unit.toNanos(duration);
+      return this;
+    }
+
+    /**
+     * Limits how many lines a level may write.
+     *
+     * @param level the log level: {@code debug}, {@code warning}, {@code error} or {@code info}
+     * @param perSecond the sustained number of lines per second
+     * @param burst the number of lines that may be written at once
+     * @return this builder
+     */
+    public Builder rateLimit(@NonNull String level, double perSecond, int burst) {
+      if (perSecond < 0 || burst < 1) {
+        throw new IllegalArgumentException(
+            "Invalid rate limit for " + level + ": " + perSecond + "/s, burst " + burst);
+      }
+      this.rateLimits.put(level, new RateLimit(perSecond, burst));
+      return this;
+    }
+
+    Builder clock(@NonNull LongSupplier clock) {
+      this.clock = clock;
+      return this;
+    }
+
+    LogThrottle build() {
+      return new LogThrottle(this);
+    }
+  }
+}
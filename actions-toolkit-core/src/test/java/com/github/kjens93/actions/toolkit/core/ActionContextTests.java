@@ -0,0 +1,129 @@
+package com.github.kjens93.actions.toolkit.core;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.contrib.java.lang.system.SystemOutRule;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ActionContextTests {
+
+  @Rule public final SystemOutRule out = new SystemOutRule().enableLog();
+
+  @After
+  public void teardown() {
+    out.clearLog();
+  }
+
+  @Test
+  public void context_reads_inputs_from_its_own_environment() {
+    ActionContext context = ActionContext.builder().env("INPUT_MY_INPUT", " val ").build();
+    assertThat(context.getInput("my input")).isEqualTo("val");
+    assertThat(context.getInput("missing")).isEqualTo("");
+  }
+
+  @Test
+  public void context_writes_commands_to_its_own_sink() {
+    ByteArrayOutputStream sink = new ByteArrayOutputStream();
+    ActionContext context = ActionContext.builder().out(new PrintStream(sink, true)).build();
+
+    context.setOutput("some output", "some value");
+    context.info("some info");
+
+    assertThat(lines(sink))
+        .containsExactly("::set-output name=some output::some value", "some info");
+    assertThat(out.getLog()).isEmpty();
+  }
+
+  @Test
+  public void context_records_secrets_and_state() {
+    ActionContext context =
+        ActionContext.builder().out(new PrintStream(new ByteArrayOutputStream())).build();
+
+    context.setSecret("secret val");
+    context.saveState("state_1", 12345);
+
+    assertThat(context.getSecrets()).containsExactly("secret val");
+    assertThat(context.getSavedState()).containsEntry("state_1", "12345");
+  }
+
+  @Test
+  public void setFailed_records_the_exit_code_without_exiting() {
+    ByteArrayOutputStream sink = new ByteArrayOutputStream();
+    ActionContext context = ActionContext.builder().out(new PrintStream(sink, true)).build();
+
+    context.setFailed("Failure message");
+
+    assertThat(context.getExitCode()).isEqualTo(Core.ExitCode.FAILURE);
+    assertThat(lines(sink)).containsExactly("::error::Failure message");
+  }
+
+  @Test
+  public void withContext_routes_static_calls_to_the_bound_context() {
+    ByteArrayOutputStream sink = new ByteArrayOutputStream();
+    ActionContext context =
+        ActionContext.builder()
+            .env("INPUT_NAME", "bound")
+            .out(new PrintStream(sink, true))
+            .build();
+
+    String input = Core.withContext(context, () -> Core.getInput("name"));
+    Core.withContext(context, () -> Core.warning("Warning"));
+    Core.warning("Unbound");
+
+    assertThat(input).isEqualTo("bound");
+    assertThat(lines(sink)).containsExactly("::warning::Warning");
+    assertThat(out.getLog()).isEqualTo("::warning::Unbound" + System.lineSeparator());
+    assertThat(Core.context()).isNotSameAs(context);
+  }
+
+  @Test
+  public void contexts_on_different_threads_do_not_interfere() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      Future<?>[] futures = new Future<?>[16];
+      ByteArrayOutputStream[] sinks = new ByteArrayOutputStream[futures.length];
+      for (int i = 0; i < futures.length; i++) {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        ActionContext context =
+            ActionContext.builder()
+                .env("INPUT_ID", String.valueOf(i))
+                .out(new PrintStream(sink, true))
+                .build();
+        Callable<Void> action =
+            () ->
+                Core.withContext(
+                    context,
+                    () -> {
+                      for (int j = 0; j < 100; j++) {
+                        Core.setOutput("id", Core.getInput("id"));
+                      }
+                      return null;
+                    });
+        sinks[i] = sink;
+        futures[i] = executor.submit(action);
+      }
+      for (Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+      for (int i = 0; i < sinks.length; i++) {
+        assertThat(lines(sinks[i])).hasSize(100).containsOnly("::set-output name=id::" + i);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static String[] lines(ByteArrayOutputStream sink) {
+    return sink.toString().split(System.lineSeparator());
+  }
+}
@@ -0,0 +1,185 @@
+package com.github.kjens93.actions.toolkit.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LogThrottleTests {
+
+  private final ByteArrayOutputStream sink = new ByteArrayOutputStream();
+
+  @Test
+  public void repeats_are_collapsed_into_periodic_summaries() {
+    ActionContext context = context(LogThrottle.builder().summaryEvery(3));
+
+    for (int i = 0; i < 8; i++) {
+      context.warning("Deprecated API");
+    }
+    context.flushSuppressed();
+
+    assertWriteCalls(
+        "::warning::Deprecated API",
+        "::warning::3 similar messages suppressed: Deprecated API",
+        "::warning::3 similar messages suppressed: Deprecated API",
+        "::warning::1 similar messages suppressed: Deprecated API");
+  }
+
+  @Test
+  public void levels_are_tracked_separately() {
+    ActionContext context = context(LogThrottle.builder());
+
+    context.warning("Same text");
+    context.error("Same text");
+    context.info("Same text");
+    context.warning("Same text");
+
+    assertWriteCalls("::warning::Same text", "::error::Same text", "Same text");
+  }
+
+  @Test
+  public void evicted_messages_are_summarized_and_written_again() {
+    ActionContext context = context(LogThrottle.builder().recentMessages(1));
+
+    context.debug("first");
+    context.debug("first");
+    context.debug("second");
+    context.debug("first");
+
+    assertWriteCalls(
+        "::debug::first",
+        "::debug::1 similar messages suppressed: first",
+        "::debug::second",
+        "::debug::first");
+  }
+
+  @Test
+  public void messages_older_than_the_repeat_window_are_written_again() {
+    AtomicLong now = new AtomicLong();
+    LogThrottle.Builder throttle =
+        LogThrottle.builder().repeatWindow(30, TimeUnit.SECONDS).clock(now::get);
+    ActionContext context = context(throttle);
+
+    context.info("Waiting for deployment...");
+    now.addAndGet(TimeUnit.SECONDS.toNanos(29));
+    context.info("Waiting for deployment...");
+    now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    context.info("Waiting for deployment...");
+    now.addAndGet(TimeUnit.MINUTES.toNanos(59));
+    context.info("Waiting for deployment...");
+
+    assertWriteCalls(
+        "Waiting for deployment...",
+        "1 similar messages suppressed: Waiting for deployment...",
+        "Waiting for deployment...",
+        "Waiting for deployment...");
+  }
+
+  @Test
+  public void rate_limits_drop_and_count_lines_over_the_limit() {
+    AtomicLong now = new AtomicLong();
+    LogThrottle.Builder throttle =
+        LogThrottle.builder().rateLimit("info", 1, 2).clock(now::get);
+    ActionContext context = context(throttle);
+
+    for (int i = 0; i < 5; i++) {
+      context.info("line " + i);
+    }
+    now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    context.info("line 5");
+
+    assertWriteCalls(
+        "line 0", "line 1", "3 info messages suppressed by rate limit", "line 5");
+  }
+
+  @Test
+  public void repeat_summaries_refused_by_the_rate_limit_keep_their_count() {
+    LogThrottle.Builder throttle =
+        LogThrottle.builder().summaryEvery(2).rateLimit("warning", 0, 1).clock(() -> 0);
+    ActionContext context = context(throttle);
+
+    for (int i = 0; i < 3; i++) {
+      context.warning("Deprecated API");
+    }
+    context.flushSuppressed();
+
+    assertWriteCalls(
+        "::warning::Deprecated API", "::warning::2 similar messages suppressed: Deprecated API");
+  }
+
+  @Test
+  public void repeats_of_evicted_messages_are_reported_by_the_rate_limit() {
+    LogThrottle.Builder throttle =
+        LogThrottle.builder()
+            .recentMessages(1)
+            .rateLimit("warning", 0, 1)
+            .clock(() -> 0);
+    ActionContext context = context(throttle);
+
+    context.warning("first");
+    context.warning("first");
+    context.warning("first");
+    context.warning("second");
+    context.flushSuppressed();
+
+    assertWriteCalls("::warning::first", "::warning::3 warning messages suppressed by rate limit");
+  }
+
+  @Test
+  public void contexts_sharing_settings_do_not_share_state() {
+    LogThrottle.Builder throttle = LogThrottle.builder();
+    ByteArrayOutputStream otherSink = new ByteArrayOutputStream();
+    ActionContext context = context(throttle);
+    ActionContext other =
+        ActionContext.builder()
+            .out(new PrintStream(otherSink, true))
+            .logThrottle(throttle)
+            .build();
+
+    context.warning("Same text");
+    context.warning("Same text");
+    other.warning("Same text");
+    other.flushSuppressed();
+
+    assertThat(otherSink.toString()).isEqualTo("::warning::Same text" + System.lineSeparator());
+    context.flushSuppressed();
+    assertWriteCalls(
+        "::warning::Same text", "::warning::1 similar messages suppressed: Same text");
+  }
+
+  @Test
+  public void setFailed_is_never_suppressed() {
+    ActionContext context = context(LogThrottle.builder());
+
+    context.error("Failure message");
+    context.error("Failure message");
+    context.setFailed("Failure message");
+
+    assertWriteCalls(
+        "::error::Failure message",
+        "::error::1 similar messages suppressed: Failure message",
+        "::error::Failure message");
+  }
+
+  @Test
+  public void commands_other_than_logging_are_not_throttled() {
+    ActionContext context = context(LogThrottle.builder().summaryEvery(1));
+
+    context.setOutput("name", "value");
+    context.setOutput("name", "value");
+
+    assertWriteCalls("::set-output name=name::value", "::set-output name=name::value");
+  }
+
+  private ActionContext context(LogThrottle.Builder throttle) {
+    return ActionContext.builder().out(new PrintStream(sink, true)).logThrottle(throttle).build();
+  }
+
+  private void assertWriteCalls(String... calls) {
+    assertThat(sink.toString().split(System.lineSeparator())).containsExactly(calls);
+  }
+}
@@ -0,0 +1,126 @@
+package com.github.kjens93.actions.toolkit.github;
+
+import com.github.kjens93.actions.toolkit.core.Core;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Value;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+/**
+ * The context the current action is being run in, read from the {@code GITHUB_*} variables of the
+ * current {@link com.github.kjens93.actions.toolkit.core.ActionContext}.
+ */
+@Getter
+public class Context {
+
+  /** Webhook payload object that triggered the workflow */
+  private final EventPayload payload;
+
+  private final String eventName;
+  private final String sha;
+  private final String ref;
+  private final String workflow;
+  private final String action;
+  private final String actor;
+  private final String job;
+  private final long runNumber;
+  private final long runId;
+  private final String apiUrl;
+  private final String serverUrl;
+  private final String graphqlUrl;
+
+  @Getter(AccessLevel.NONE)
+  private final String repository;
+
+  /** Hydrate the context from the environment */
+  public Context() {
+    String eventPath = Core.getVariable("GITHUB_EVENT_PATH");
+    if (StringUtils.isNotBlank(eventPath)) {
+      Path file = Paths.get(eventPath);
+      if (Files.exists(file)) {
+        this.payload = EventPayload.of(file);
+      } else {
+        Core.info("GITHUB_EVENT_PATH " + eventPath + " does not exist");
+        this.payload = EventPayload.empty();
+      }
+    } else {
+      this.payload = EventPayload.empty();
+    }
+    this.eventName = Core.getVariable("GITHUB_EVENT_NAME");
+    this.sha = Core.getVariable("GITHUB_SHA");
+    this.ref = Core.getVariable("GITHUB_REF");
+    this.workflow = Core.getVariable("GITHUB_WORKFLOW");
+    this.action = Core.getVariable("GITHUB_ACTION");
+    this.actor = Core.getVariable("GITHUB_ACTOR");
+    this.job = Core.getVariable("GITHUB_JOB");
+    this.runNumber = NumberUtils.toLong(Core.getVariable("GITHUB_RUN_NUMBER"));
+    this.runId = NumberUtils.toLong(Core.getVariable("GITHUB_RUN_ID"));
+    this.apiUrl =
+        StringUtils.defaultIfBlank(Core.getVariable("GITHUB_API_URL"), "https://api.github.com");
+    this.serverUrl =
+        StringUtils.defaultIfBlank(Core.getVariable("GITHUB_SERVER_URL"), "https://github.com");
+    this.graphqlUrl =
+        StringUtils.defaultIfBlank(
+            Core.getVariable("GITHUB_GRAPHQL_URL"), "https://api.github.com/graphql");
+    this.repository = Core.getVariable("GITHUB_REPOSITORY");
+  }
+
+  /**
+   * Gets the repository the workflow is running in, from {@code GITHUB_REPOSITORY} or else from the
+   * payload.
+   *
+   * @return the repository
+   */
+  public Repo getRepo() {
+    if (StringUtils.isNotBlank(repository)) {
+      String[] parts = repository.split("/", 2);
+      return new Repo(parts[0], parts.length > 1 ? parts[1] : "");
+    }
+    Optional<String> owner = payload.getString("repository.owner.login");
+    Optional<String> name = payload.getString("repository.name");
+    if (owner.isPresent() && name.isPresent()) {
+      return new Repo(owner.get(), name.get());
+    }
+    throw new IllegalStateException(
+        "context.repo requires a GITHUB_REPOSITORY environment variable like 'owner/repo'");
+  }
+
+  /**
+   * Gets the issue or pull request the event refers to.
+   *
+   * @return the issue, or empty if the event does not refer to one
+   */
+  public Optional<Issue> getIssue() {
+    Optional<Long> number = payload.getLong("issue.number");
+    if (!number.isPresent()) {
+      number = payload.getLong("pull_request.number");
+    }
+    if (!number.isPresent()) {
+      number = payload.getLong("number");
+    }
+    if (!number.isPresent()) {
+      return Optional.empty();
+    }
+    Repo repo = getRepo();
+    return Optional.of(new Issue(repo.getOwner(), repo.getRepo(), number.get()));
+  }
+
+  @Value
+  public static class Repo {
+    String owner;
+    String repo;
+  }
+
+  @Value
+  public static class Issue {
+    String owner;
+    String repo;
+    long number;
+  }
+}
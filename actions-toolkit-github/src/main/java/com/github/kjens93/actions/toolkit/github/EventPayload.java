@@ -0,0 +1,170 @@
+package com.github.kjens93.actions.toolkit.github;
+
+import lombok.NonNull;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.github.kjens93.actions.toolkit.github.JsonScanner.NOT_FOUND;
+
+/**
+ * The webhook payload of the event that triggered the workflow.
+ *
+ * <p>The payload file is memory-mapped the first time a value is requested and is never fully
+ * deserialized. Values are addressed by dot-separated paths such as {@code pull_request.head.sha}
+ * or {@code commits.0.id}; only the requested value is materialized, and it is cached for later
+ * calls.
+ */
+public final class EventPayload {
+
+  private static final EventPayload EMPTY = new EventPayload(null);
+
+  private final Path file;
+  private final Map<String, Integer> offsets = new ConcurrentHashMap<>();
+  private final Map<String, Optional<Object>> values = new ConcurrentHashMap<>();
+  private volatile JsonScanner scanner;
+
+  private EventPayload(Path file) {
+    this.file = file;
+  }
+
+  /**
+   * Creates a payload backed by the given file. The file is not read until a value is requested.
+   *
+   * @param file path to a JSON document
+   * @return the payload
+   */
+  public static EventPayload of(@NonNull Path file) {
+    return new EventPayload(file);
+  }
+
+  /**
+   * Gets a payload that contains no values.
+   *
+   * @return the empty payload
+   */
+  public static EventPayload empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Gets the value at the given path. Objects are returned as maps, arrays as lists, and numbers
+   * as {@link Long} or {@link Double}.
+   *
+   * @param path dot-separated path of the value; the empty string addresses the whole payload
+   * @return the value, or empty if the path does not exist or the value is {@code null}
+   */
+  public Optional<Object> get(@NonNull String path) {
+    return values.computeIfAbsent(path, this::load);
+  }
+
+  /**
+   * Gets the string at the given path.
+   *
+   * @param path dot-separated path of the value
+   * @return the value, or empty if the path does not exist or is not a string
+   */
+  public Optional<String> getString(@NonNull String path) {
+    return get(path).filter(String.class::isInstance).map(String.class::cast);
+  }
+
+  /**
+   * Gets the number at the given path as a long.
+   *
+   * @param path dot-separated path of the value
+   * @return the value, or empty if the path does not exist or is not a number
+   */
+  public Optional<Long> getLong(@NonNull String path) {
+    return get(path).filter(Number.class::isInstance).map(n -> ((Number) n).longValue());
+  }
+
+  /**
+   * Gets the boolean at the given path.
+   *
+   * @param path dot-separated path of the value
+   * @return the value, or empty if the path does not exist or is not a boolean
+   */
+  public Optional<Boolean> getBoolean(@NonNull String path) {
+    return get(path).filter(Boolean.class::isInstance).map(Boolean.class::cast);
+  }
+
+  /**
+   * Gets whether a value exists at the given path, without materializing it.
+   *
+   * @param path dot-separated path of the value
+   * @return true if the path exists
+   */
+  public boolean has(@NonNull String path) {
+    return offset(path) != NOT_FOUND;
+  }
+
+  /**
+   * Materializes the whole payload.
+   *
+   * @return the payload as a map, or an empty map if there is no payload
+   */
+  @SuppressWarnings("unchecked")
+  public Map<String, Object> toMap() {
+    return get("")
+        .filter(Map.class::isInstance)
+        .map(m -> (Map<String, Object>) m)
+        .orElse(Collections.emptyMap());
+  }
+
+  // -----------------------------------------------------------------------
+  // Internals
+  // -----------------------------------------------------------------------
+
+  private Optional<Object> load(String path) {
+    int pos = offset(path);
+    return pos == NOT_FOUND ? Optional.empty() : Optional.ofNullable(scanner().read(pos));
+  }
+
+  private int offset(String path) {
+    Integer cached = offsets.get(path);
+    if (cached != null) {
+      return cached;
+    }
+    int pos;
+    JsonScanner scanner = scanner();
+    if (scanner == null) {
+      pos = NOT_FOUND;
+    } else if (path.isEmpty()) {
+      pos = scanner.root();
+    } else {
+      int dot = path.lastIndexOf('.');
+      String segment = path.substring(dot + 1);
+      int parent = offset(dot < 0 ? "" : path.substring(0, dot));
+      pos = parent == NOT_FOUND ? NOT_FOUND : scanner.member(parent, segment);
+      if (pos == NOT_FOUND && parent != NOT_FOUND && StringUtils.isNumeric(segment)) {
+        pos = scanner.element(parent, Integer.parseInt(segment));
+      }
+    }
+    offsets.put(path, pos);
+    return pos;
+  }
+
+  private JsonScanner scanner() {
+    if (scanner == null && file != null) {
+      synchronized (this) {
+        if (scanner == null) {
+          try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            scanner = new JsonScanner(channel.map(MapMode.READ_ONLY, 0, channel.size()));
+          } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read event payload: " + file, e);
+          }
+        }
+      }
+    }
+    return scanner;
+  }
+}
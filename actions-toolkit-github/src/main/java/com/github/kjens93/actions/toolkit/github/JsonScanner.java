@@ -0,0 +1,392 @@
+package com.github.kjens93.actions.toolkit.github;
+
+import lombok.NonNull;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A forward-only JSON scanner over a byte buffer. Values are located by skipping over everything
+ * that was not asked for, so only the members on the way to a requested value are ever decoded.
+ *
+ * <p>All reads use absolute offsets, so a single scanner may be shared between threads.
+ */
+final class JsonScanner {
+
+  static final int NOT_FOUND = -1;
+
+  private final ByteBuffer buffer;
+  private final int limit;
+
+  JsonScanner(@NonNull ByteBuffer buffer) {
+    this.buffer = buffer;
+    this.limit = buffer.limit();
+  }
+
+  /** Gets the offset of the first value in the buffer, or {@link #NOT_FOUND} if it is empty. */
+  int root() {
+    int pos = skipWhitespace(0);
+    return pos < limit ? pos : NOT_FOUND;
+  }
+
+  /**
+   * Finds a member of the object starting at the given offset.
+   *
+   * @param pos offset of a value
+   * @param name name of the member to find
+   * @return offset of the member's value, or {@link #NOT_FOUND} if the value at {@code pos} is not
+   *     an object or has no such member
+   */
+  int member(int pos, @NonNull String name) {
+    if (peek(pos) != '{') {
+      return NOT_FOUND;
+    }
+    pos = skipWhitespace(pos + 1);
+    if (peek(pos) == '}') {
+      return NOT_FOUND;
+    }
+    byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+    while (true) {
+      expect(pos, '"');
+      int keyEnd = skipString(pos);
+      boolean matches = keyEquals(pos, keyEnd, name, nameBytes);
+      pos = skipWhitespace(keyEnd);
+      expect(pos, ':');
+      pos = skipWhitespace(pos + 1);
+      if (matches) {
+        return pos;
+      }
+      pos = skipWhitespace(skipValue(pos));
+      if (peek(pos) == '}') {
+        return NOT_FOUND;
+      }
+      expect(pos, ',');
+      pos = skipWhitespace(pos + 1);
+    }
+  }
+
+  /**
+   * Finds an element of the array starting at the given offset.
+   *
+   * @param pos offset of a value
+   * @param index zero-based index of the element to find
+   * @return offset of the element, or {@link #NOT_FOUND} if the value at {@code pos} is not an
+   *     array or is too short
+   */
+  int element(int pos, int index) {
+    if (peek(pos) != '[' || index < 0) {
+      return NOT_FOUND;
+    }
+    pos = skipWhitespace(pos + 1);
+    if (peek(pos) == ']') {
+      return NOT_FOUND;
+    }
+    for (int i = 0; ; i++) {
+      if (i == index) {
+        return pos;
+      }
+      pos = skipWhitespace(skipValue(pos));
+      if (peek(pos) == ']') {
+        return NOT_FOUND;
+      }
+      expect(pos, ',');
+      pos = skipWhitespace(pos + 1);
+    }
+  }
+
+  /**
+   * Materializes the value starting at the given offset. Objects become unmodifiable maps that
+   * keep member order, arrays become unmodifiable lists, integral numbers become {@link Long} where
+   * they fit and all other numbers become {@link Double}.
+   *
+   * @param pos offset of a value
+   * @return the decoded value, which is {@code null} for a JSON {@code null}
+   */
+  Object read(int pos) {
+    return read(new int[] {pos});
+  }
+
+  // -----------------------------------------------------------------------
+  // Materializing
+  // -----------------------------------------------------------------------
+
+  // Each reader takes the value's offset in cursor[0] and leaves the offset just past it there, so
+  // that every byte of a materialized value is scanned once
+  private Object read(int[] cursor) {
+    int pos = cursor[0];
+    switch (peek(pos)) {
+      case '{':
+        return readObject(cursor);
+      case '[':
+        return readArray(cursor);
+      case '"':
+        cursor[0] = skipString(pos);
+        return readString(pos, cursor[0]);
+      case 't':
+      case 'f':
+      case 'n':
+        Object literal = readLiteral(pos);
+        cursor[0] = skipValue(pos);
+        return literal;
+      default:
+        cursor[0] = skipNumber(pos);
+        return readNumber(pos, cursor[0]);
+    }
+  }
+
+  private Map<String, Object> readObject(int[] cursor) {
+    Map<String, Object> members = new LinkedHashMap<>();
+    int pos = skipWhitespace(cursor[0] + 1);
+    if (peek(pos) != '}') {
+      while (true) {
+        expect(pos, '"');
+        int keyEnd = skipString(pos);
+        String key = readString(pos, keyEnd);
+        pos = skipWhitespace(keyEnd);
+        expect(pos, ':');
+        cursor[0] = skipWhitespace(pos + 1);
+        members.put(key, read(cursor));
+        pos = skipWhitespace(cursor[0]);
+        if (peek(pos) == '}') {
+          break;
+        }
+        expect(pos, ',');
+        pos = skipWhitespace(pos + 1);
+      }
+    }
+    cursor[0] = pos + 1;
+    return Collections.unmodifiableMap(members);
+  }
+
+  private List<Object> readArray(int[] cursor) {
+    List<Object> elements = new ArrayList<>();
+    int pos = skipWhitespace(cursor[0] + 1);
+    if (peek(pos) != ']') {
+      while (true) {
+        cursor[0] = pos;
+        elements.add(read(cursor));
+        pos = skipWhitespace(cursor[0]);
+        if (peek(pos) == ']') {
+          break;
+        }
+        expect(pos, ',');
+        pos = skipWhitespace(pos + 1);
+      }
+    }
+    cursor[0] = pos + 1;
+    return Collections.unmodifiableList(elements);
+  }
+
+  private String readString(int start, int end) {
+    StringBuilder sb = new StringBuilder(end - start);
+    int run = start + 1;
+    int pos = run;
+    while (pos < end - 1) {
+      if (buffer.get(pos) != '\\') {
+        pos++;
+        continue;
+      }
+      sb.append(decode(run, pos));
+      char escape = (char) buffer.get(pos + 1);
+      switch (escape) {
+        case 'b':
+          sb.append('\b');
+          break;
+        case 'f':
+          sb.append('\f');
+          break;
+        case 'n':
+          sb.append('\n');
+          break;
+        case 'r':
+          sb.append('\r');
+          break;
+        case 't':
+          sb.append('\t');
+          break;
+        case 'u':
+          if (pos + 6 > end - 1) {
+            throw malformed(pos);
+          }
+          try {
+            sb.append((char) Integer.parseInt(decode(pos + 2, pos + 6), 16));
+          } catch (NumberFormatException e) {
+            throw malformed(pos);
+          }
+          pos += 4;
+          break;
+        default:
+          sb.append(escape);
+      }
+      pos += 2;
+      run = pos;
+    }
+    return sb.append(decode(run, end - 1)).toString();
+  }
+
+  private Object readLiteral(int pos) {
+    if (matches(pos, "true")) {
+      return Boolean.TRUE;
+    } else if (matches(pos, "false")) {
+      return Boolean.FALSE;
+    } else if (matches(pos, "null")) {
+      return null;
+    }
+    throw malformed(pos);
+  }
+
+  private Number readNumber(int start, int end) {
+    String text = decode(start, end);
+    try {
+      if (text.indexOf('.') < 0 && text.indexOf('e') < 0 && text.indexOf('E') < 0) {
+        try {
+          return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+          // Too large for a long; fall through to a double like JavaScript would
+        }
+      }
+      return Double.parseDouble(text);
+    } catch (NumberFormatException e) {
+      throw malformed(start);
+    }
+  }
+
+  private String decode(int start, int end) {
+    byte[] bytes = new byte[end - start];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = buffer.get(start + i);
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  // -----------------------------------------------------------------------
+  // Skipping
+  // -----------------------------------------------------------------------
+
+  private int skipValue(int pos) {
+    switch (peek(pos)) {
+      case '{':
+      case '[':
+        return skipContainer(pos);
+      case '"':
+        return skipString(pos);
+      case 't':
+      case 'n':
+        return pos + 4;
+      case 'f':
+        return pos + 5;
+      default:
+        return skipNumber(pos);
+    }
+  }
+
+  private int skipContainer(int pos) {
+    int depth = 0;
+    while (pos < limit) {
+      byte b = buffer.get(pos);
+      if (b == '"') {
+        pos = skipString(pos);
+        continue;
+      }
+      if (b == '{' || b == '[') {
+        depth++;
+      } else if (b == '}' || b == ']') {
+        if (--depth == 0) {
+          return pos + 1;
+        }
+      }
+      pos++;
+    }
+    throw malformed(pos);
+  }
+
+  private int skipString(int pos) {
+    pos++;
+    while (pos < limit) {
+      byte b = buffer.get(pos);
+      if (b == '\\') {
+        pos += 2;
+      } else if (b == '"') {
+        return pos + 1;
+      } else {
+        pos++;
+      }
+    }
+    throw malformed(pos);
+  }
+
+  private int skipNumber(int pos) {
+    int start = pos;
+    while (pos < limit && "+-0123456789.eE".indexOf(buffer.get(pos)) >= 0) {
+      pos++;
+    }
+    if (pos == start) {
+      throw malformed(pos);
+    }
+    return pos;
+  }
+
+  private int skipWhitespace(int pos) {
+    while (pos < limit) {
+      byte b = buffer.get(pos);
+      if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+        break;
+      }
+      pos++;
+    }
+    return pos;
+  }
+
+  // -----------------------------------------------------------------------
+  // Helpers
+  // -----------------------------------------------------------------------
+
+  private int peek(int pos) {
+    if (pos < 0 || pos >= limit) {
+      throw malformed(pos);
+    }
+    return buffer.get(pos);
+  }
+
+  private void expect(int pos, char c) {
+    if (peek(pos) != c) {
+      throw malformed(pos);
+    }
+  }
+
+  private boolean keyEquals(int start, int end, String name, byte[] nameBytes) {
+    boolean escaped = false;
+    boolean same = end - start - 2 == nameBytes.length;
+    for (int i = start + 1; i < end - 1; i++) {
+      byte b = buffer.get(i);
+      if (b == '\\') {
+        escaped = true;
+      }
+      if (same && b != nameBytes[i - start - 1]) {
+        same = false;
+      }
+    }
+    return same || (escaped && readString(start, end).equals(name));
+  }
+
+  private boolean matches(int pos, String literal) {
+    if (pos + literal.length() > limit) {
+      return false;
+    }
+    for (int i = 0; i < literal.length(); i++) {
+      if (buffer.get(pos + i) != literal.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static IllegalStateException malformed(int pos) {
+    return new IllegalStateException("Malformed JSON at offset " + pos);
+  }
+}
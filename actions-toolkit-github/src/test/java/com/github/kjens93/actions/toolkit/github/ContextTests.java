@@ -0,0 +1,108 @@
+package com.github.kjens93.actions.toolkit.github;
+
+import com.github.kjens93.actions.toolkit.core.ActionContext;
+import com.github.kjens93.actions.toolkit.core.Core;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ContextTests {
+
+  @Rule public final TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void context_is_hydrated_from_the_environment() throws IOException {
+    Path event = tmp.newFile("event.json").toPath();
+    Files.write(event, "{\"pull_request\": {\"number\": 7}}".getBytes(StandardCharsets.UTF_8));
+
+    ActionContext env =
+        ActionContext.builder()
+            .env("GITHUB_EVENT_PATH", event.toString())
+            .env("GITHUB_EVENT_NAME", "pull_request")
+            .env("GITHUB_SHA", "abc123")
+            .env("GITHUB_REF", "refs/pull/7/merge")
+            .env("GITHUB_RUN_NUMBER", "12")
+            .env("GITHUB_RUN_ID", "3456")
+            .env("GITHUB_REPOSITORY", "octocat/hello-world")
+            .build();
+
+    Context context = Core.withContext(env, Context::new);
+
+    assertThat(context.getEventName()).isEqualTo("pull_request");
+    assertThat(context.getSha()).isEqualTo("abc123");
+    assertThat(context.getRef()).isEqualTo("refs/pull/7/merge");
+    assertThat(context.getRunNumber()).isEqualTo(12);
+    assertThat(context.getRunId()).isEqualTo(3456);
+    assertThat(context.getApiUrl()).isEqualTo("https://api.github.com");
+    assertThat(context.getPayload().getLong("pull_request.number")).hasValue(7L);
+  }
+
+  @Test
+  public void repo_and_issue_are_available_outside_the_binding_context() throws IOException {
+    Path event = tmp.newFile("event.json").toPath();
+    Files.write(event, "{\"issue\": {\"number\": 3}}".getBytes(StandardCharsets.UTF_8));
+
+    ActionContext env =
+        ActionContext.builder()
+            .env("GITHUB_EVENT_PATH", event.toString())
+            .env("GITHUB_REPOSITORY", "octocat/hello-world")
+            .build();
+
+    Context context = Core.withContext(env, Context::new);
+
+    assertThat(context.getRepo()).isEqualTo(new Context.Repo("octocat", "hello-world"));
+    assertThat(context.getIssue()).hasValue(new Context.Issue("octocat", "hello-world", 3));
+  }
+
+  @Test
+  public void repo_falls_back_to_the_payload() throws IOException {
+    Path event = tmp.newFile("event.json").toPath();
+    Files.write(
+        event,
+        "{\"repository\": {\"name\": \"hello-world\", \"owner\": {\"login\": \"octocat\"}}}"
+            .getBytes(StandardCharsets.UTF_8));
+
+    ActionContext env = ActionContext.builder().env("GITHUB_EVENT_PATH", event.toString()).build();
+
+    Core.withContext(
+        env,
+        () -> {
+          Context context = new Context();
+          assertThat(context.getRepo()).isEqualTo(new Context.Repo("octocat", "hello-world"));
+          assertThat(context.getIssue()).isEmpty();
+        });
+  }
+
+  @Test
+  public void missing_event_path_yields_an_empty_payload() {
+    ByteArrayOutputStream sink = new ByteArrayOutputStream();
+    ActionContext env =
+        ActionContext.builder()
+            .env("GITHUB_EVENT_PATH", "/does/not/exist.json")
+            .out(new PrintStream(sink, true))
+            .build();
+
+    Core.withContext(
+        env,
+        () -> {
+          Context context = new Context();
+          assertThat(context.getPayload().toMap()).isEmpty();
+          assertThatThrownBy(context::getRepo)
+              .hasMessage(
+                  "context.repo requires a GITHUB_REPOSITORY environment variable like 'owner/repo'");
+        });
+    assertThat(sink.toString())
+        .isEqualTo(
+            "GITHUB_EVENT_PATH /does/not/exist.json does not exist" + System.lineSeparator());
+  }
+}
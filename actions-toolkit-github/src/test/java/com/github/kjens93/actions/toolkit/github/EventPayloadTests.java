@@ -0,0 +1,125 @@
+package com.github.kjens93.actions.toolkit.github;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class EventPayloadTests {
+
+  @Rule public final TemporaryFolder tmp = new TemporaryFolder();
+
+  private static final String PAYLOAD =
+      "{\n"
+          + "  \"action\": \"opened\",\n"
+          + "  \"number\": 42,\n"
+          + "  \"draft\": false,\n"
+          + "  \"score\": 1.5e2,\n"
+          + "  \"body\": null,\n"
+          + "  \"title\": \"Fix \\\"quotes\\\" \\u00e9t\\u00e9 \\ud83d\\ude80\\n\",\n"
+          + "  \"na\\u006de\": \"escaped key\",\n"
+          + "  \"emoji\": \"café 🚀\",\n"
+          + "  \"skipped\": {\"nested\": [1, \"}]\", {\"deep\": true}], \"empty\": {}},\n"
+          + "  \"pull_request\": {\n"
+          + "    \"head\": {\"sha\": \"abc123\", \"ref\": \"feature\"},\n"
+          + "    \"labels\": [{\"name\": \"bug\"}, {\"name\": \"docs\"}],\n"
+          + "    \"0\": \"numeric key\"\n"
+          + "  }\n"
+          + "}\n";
+
+  @Test
+  public void reads_scalar_values() throws IOException {
+    EventPayload payload = payload(PAYLOAD);
+    assertThat(payload.getString("action")).hasValue("opened");
+    assertThat(payload.getLong("number")).hasValue(42L);
+    assertThat(payload.getBoolean("draft")).hasValue(false);
+    assertThat(payload.get("score")).hasValue(150.0);
+    assertThat(payload.get("body")).isEmpty();
+    assertThat(payload.has("body")).isTrue();
+  }
+
+  @Test
+  public void reads_nested_values_and_array_elements() throws IOException {
+    EventPayload payload = payload(PAYLOAD);
+    assertThat(payload.getString("pull_request.head.sha")).hasValue("abc123");
+    assertThat(payload.getString("pull_request.head.ref")).hasValue("feature");
+    assertThat(payload.getString("pull_request.labels.1.name")).hasValue("docs");
+    assertThat(payload.getString("pull_request.0")).hasValue("numeric key");
+    assertThat(payload.getBoolean("skipped.nested.2.deep")).hasValue(true);
+  }
+
+  @Test
+  public void materializes_containers() throws IOException {
+    EventPayload payload = payload(PAYLOAD);
+    assertThat(payload.get("pull_request.head").map(Map.class::cast))
+        .hasValueSatisfying(head -> assertThat(head.keySet()).containsExactly("sha", "ref"));
+    assertThat(payload.get("skipped.nested")).containsInstanceOf(List.class);
+    assertThat(payload.toMap()).containsEntry("action", "opened").hasSize(10);
+    assertThat(payload.get("skipped").map(Object::toString))
+        .hasValue("{nested=[1, }], {deep=true}], empty={}}");
+  }
+
+  @Test
+  public void decodes_escapes_and_utf8() throws IOException {
+    EventPayload payload = payload(PAYLOAD);
+    assertThat(payload.getString("title")).hasValue("Fix \"quotes\" été 🚀\n");
+    assertThat(payload.getString("emoji")).hasValue("café 🚀");
+    assertThat(payload.getString("name")).hasValue("escaped key");
+  }
+
+  @Test
+  public void missing_paths_are_empty() throws IOException {
+    EventPayload payload = payload(PAYLOAD);
+    for (String path : Arrays.asList("nope", "action.nope", "pull_request.labels.5", "number.0")) {
+      assertThat(payload.get(path)).as(path).isEmpty();
+      assertThat(payload.has(path)).as(path).isFalse();
+    }
+    assertThat(payload.getLong("action")).isEmpty();
+  }
+
+  @Test
+  public void values_are_cached() throws IOException {
+    EventPayload payload = payload(PAYLOAD);
+    assertThat(payload.get("pull_request.labels").get())
+        .isSameAs(payload.get("pull_request.labels").get());
+  }
+
+  @Test
+  public void empty_payloads_have_no_values() throws IOException {
+    assertThat(EventPayload.empty().get("action")).isEmpty();
+    assertThat(EventPayload.empty().toMap()).isEmpty();
+    assertThat(payload("").toMap()).isEmpty();
+  }
+
+  @Test
+  public void malformed_payloads_throw() throws IOException {
+    EventPayload payload = payload("{\"action\" \"opened\"}");
+    assertThatThrownBy(() -> payload.get("action"))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageStartingWith("Malformed JSON at offset");
+
+    EventPayload escapes = payload("{\"short\": \"\\u12\", \"hex\": \"\\uzz12\"}");
+    for (String path : Arrays.asList("short", "hex")) {
+      assertThatThrownBy(() -> escapes.get(path))
+          .as(path)
+          .isInstanceOf(IllegalStateException.class)
+          .hasMessageStartingWith("Malformed JSON at offset");
+    }
+  }
+
+  private EventPayload payload(String json) throws IOException {
+    Path file = tmp.newFile().toPath();
+    Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+    return EventPayload.of(file);
+  }
+}
@@ -0,0 +1,254 @@
+package com.github.kjens93.actions.toolkit.http;
+
+import lombok.NonNull;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * An on-disk cache of responses that carried an {@code ETag}, used to make conditional requests.
+ *
+ * <p>Each entry is one file named after a hash of its URL. The least recently used entries are
+ * deleted once the cache holds more than its maximum number of entries; file modification times
+ * carry the recency across runs. Entries that cannot be read are treated as misses and deleted.
+ *
+ * <p>ETags are kept in memory once known, so that a conditional request can be made without
+ * touching the disk; the stored response is only read when the server answers {@code 304}.
+ */
+final class ETagCache {
+
+  private static final String SUFFIX = ".etag";
+  private static final String TMP_SUFFIX = ".tmp";
+
+  // Temp files older than this were left behind by a process that died before moving them
+  private static final long STALE_TMP_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+  private final Path directory;
+  private final int maxEntries;
+
+  // File name to ETag, or to null while the ETag has not been read from disk yet
+  private final LinkedHashMap<String, String> index = new LinkedHashMap<>(16, 0.75f, true);
+
+  ETagCache(@NonNull Path directory, int maxEntries) throws IOException {
+    if (maxEntries < 1) {
+      throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+    }
+    this.directory = Files.createDirectories(directory);
+    this.maxEntries = maxEntries;
+    deleteStaleTempFiles();
+    try (Stream<Path> files = Files.list(directory)) {
+      List<Path> existing =
+          files
+              .filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+              .sorted(Comparator.comparing(ETagCache::lastModified))
+              .collect(Collectors.toList());
+      for (Path file : existing) {
+        index.put(file.getFileName().toString(), null);
+      }
+    }
+    synchronized (this) {
+      evict();
+    }
+  }
+
+  /**
+   * Looks up the ETag of the cached response for a URL, reading only the head of its entry the
+   * first time.
+   *
+   * @param url the request URL
+   * @return the ETag, or empty if there is no entry
+   */
+  Optional<String> getETag(@NonNull String url) {
+    String name = fileName(url);
+    synchronized (this) {
+      if (!index.containsKey(name)) {
+        return Optional.empty();
+      }
+      String etag = index.get(name);
+      if (etag != null) {
+        return Optional.of(etag);
+      }
+    }
+    try (DataInputStream in = new DataInputStream(Files.newInputStream(directory.resolve(name)))) {
+      if (!in.readUTF().equals(url)) {
+        return Optional.empty();
+      }
+      String etag = in.readUTF();
+      synchronized (this) {
+        index.replace(name, etag);
+      }
+      return Optional.of(etag);
+    } catch (NoSuchFileException e) {
+      // Evicted by another thread since the index was checked
+      return Optional.empty();
+    } catch (IOException e) {
+      // Truncated, or written in an older format
+      remove(name);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Reads the cached response for a URL, if it is still stored under the given ETag.
+   *
+   * @param url the request URL
+   * @param etag the ETag the server confirmed
+   * @return the cached response, or empty if the entry is gone or has changed
+   */
+  Optional<HttpResponse> load(@NonNull String url, @NonNull String etag) {
+    String name = fileName(url);
+    Path file = directory.resolve(name);
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (!in.readUTF().equals(url) || !in.readUTF().equals(etag)) {
+        return Optional.empty();
+      }
+      int statusCode = in.readInt();
+      Map<String, List<String>> headers = new LinkedHashMap<>();
+      for (int i = in.readInt(); i > 0; i--) {
+        String header = in.readUTF();
+        List<String> values = new ArrayList<>();
+        for (int j = in.readInt(); j > 0; j--) {
+          values.add(in.readUTF());
+        }
+        headers.put(header, values);
+      }
+      int length = in.readInt();
+      if (length < 0 || length > Files.size(file)) {
+        throw new IOException("Invalid body length: " + length);
+      }
+      byte[] body = new byte[length];
+      in.readFully(body);
+      Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+      return Optional.of(new HttpResponse(statusCode, headers, body, true));
+    } catch (NoSuchFileException e) {
+      // Evicted by another thread since the ETag was looked up
+      return Optional.empty();
+    } catch (IOException e) {
+      // Truncated, or written in an older format
+      remove(name);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Stores a response under its URL, evicting the least recently used entries if needed. If the
+   * entry cannot be written, nothing is left behind in the cache directory.
+   *
+   * @param url the request URL
+   * @param etag the response's ETag
+   * @param response the response to store
+   */
+  void put(@NonNull String url, @NonNull String etag, @NonNull HttpResponse response)
+      throws IOException {
+    String name = fileName(url);
+    Path tmp = Files.createTempFile(directory, name, TMP_SUFFIX);
+    try {
+      try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tmp))) {
+        out.writeUTF(url);
+        out.writeUTF(etag);
+        out.writeInt(response.getStatusCode());
+        out.writeInt(response.getHeaders().size());
+        for (Map.Entry<String, List<String>> header : response.getHeaders().entrySet()) {
+          out.writeUTF(header.getKey());
+          out.writeInt(header.getValue().size());
+          for (String value : header.getValue()) {
+            out.writeUTF(value);
+          }
+        }
+        out.writeInt(response.getBody().length);
+        out.write(response.getBody());
+      }
+      Files.move(tmp, directory.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      // Such as a full disk, or a value too long for writeUTF
+      try {
+        Files.deleteIfExists(tmp);
+      } catch (IOException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+      throw e;
+    }
+    synchronized (this) {
+      index.put(name, etag);
+      evict();
+    }
+  }
+
+  /** Gets the number of entries in the cache. */
+  synchronized int size() {
+    return index.size();
+  }
+
+  private synchronized void remove(String name) {
+    index.remove(name);
+    try {
+      Files.deleteIfExists(directory.resolve(name));
+    } catch (IOException e) {
+      // Left for the next eviction or overwrite
+    }
+  }
+
+  private void deleteStaleTempFiles() throws IOException {
+    long cutoff = System.currentTimeMillis() - STALE_TMP_MILLIS;
+    try (Stream<Path> files = Files.list(directory)) {
+      List<Path> stale =
+          files
+              .filter(file -> file.getFileName().toString().endsWith(TMP_SUFFIX))
+              .filter(file -> lastModified(file).toMillis() < cutoff)
+              .collect(Collectors.toList());
+      for (Path file : stale) {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+
+  private void evict() throws IOException {
+    Iterator<String> eldest = index.keySet().iterator();
+    while (index.size() > maxEntries) {
+      Files.deleteIfExists(directory.resolve(eldest.next()));
+      eldest.remove();
+    }
+  }
+
+  private static String fileName(String url) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      StringBuilder sb = new StringBuilder();
+      for (byte b : digest.digest(url.getBytes(StandardCharsets.UTF_8))) {
+        sb.append(String.format("%02x", b));
+      }
+      return sb.append(SUFFIX).toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  private static FileTime lastModified(Path file) {
+    try {
+      return Files.getLastModifiedTime(file);
+    } catch (IOException e) {
+      return FileTime.fromMillis(0);
+    }
+  }
+}
@@ -0,0 +1,439 @@
+package com.github.kjens93.actions.toolkit.http;
+
+import com.github.kjens93.actions.toolkit.core.ActionContext;
+import com.github.kjens93.actions.toolkit.core.Core;
+import lombok.NonNull;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An HTTP client for the GitHub API.
+ *
+ * <ul>
+ *   <li>Connections are kept alive and reused through the JDK's {@link HttpURLConnection} pool;
+ *       every response body is read to the end so its connection can go back to the pool.
+ *   <li>{@code GET} responses that carry an {@code ETag} can be cached on disk, and later requests
+ *       for the same URL are made conditional. A {@code 304 Not Modified} is answered from the
+ *       cache and does not count against GitHub's primary rate limit.
+ *   <li>Requests in flight are throttled according to the {@code X-RateLimit-*} headers, and
+ *       rate-limited requests are retried once the limit resets, or after an exponential backoff
+ *       when the response does not say when that is.
+ * </ul>
+ *
+ * <p>Requests are traced as debug messages, and the token is registered as a secret so that it is
+ * masked in the logs. Both go through the {@link Core#context()} that was current when the client
+ * was built.
+ */
+public final class HttpClient {
+
+  private static final Pattern PAGE = Pattern.compile("([?&]page=)(\\d+)");
+
+  private final ActionContext context;
+  private final String userAgent;
+  private final String token;
+  private final ETagCache cache;
+  private final RateLimitThrottle throttle;
+  private final int maxConcurrency;
+  private final int maxRetries;
+  private final int retryBackoff;
+  private final int connectTimeout;
+  private final int readTimeout;
+
+  private HttpClient(Builder builder) throws IOException {
+    this.context = Core.context();
+    this.userAgent = builder.userAgent;
+    this.token = builder.token;
+    this.cache =
+        builder.cacheDirectory != null
+            ? new ETagCache(builder.cacheDirectory, builder.maxCacheEntries)
+            : null;
+    this.throttle = new RateLimitThrottle(builder.maxConcurrency);
+    this.maxConcurrency = builder.maxConcurrency;
+    this.maxRetries = builder.maxRetries;
+    this.retryBackoff = builder.retryBackoff;
+    this.connectTimeout = builder.connectTimeout;
+    this.readTimeout = builder.readTimeout;
+    if (StringUtils.isNotBlank(token)) {
+      context.setSecret(token);
+    }
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  // -----------------------------------------------------------------------
+  // Requests
+  // -----------------------------------------------------------------------
+
+  /**
+   * Sends a {@code GET} request.
+   *
+   * @param url the URL to get
+   * @return the response
+   */
+  public HttpResponse get(@NonNull String url) throws IOException {
+    return request("GET", url, Collections.emptyMap(), null);
+  }
+
+  /**
+   * Sends a {@code POST} request.
+   *
+   * @param url the URL to post to
+   * @param body the request body, sent as UTF-8
+   * @return the response
+   */
+  public HttpResponse post(@NonNull String url, @NonNull String body) throws IOException {
+    return request("POST", url, Collections.emptyMap(), body.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Sends a request, waiting for the rate limit if needed and retrying rate-limited responses up to
+   * the configured number of times.
+   *
+   * @param method the HTTP method
+   * @param url the URL to send the request to
+   * @param headers additional request headers
+   * @param body the request body, or null for none
+   * @return the response
+   */
+  public HttpResponse request(
+      @NonNull String method,
+      @NonNull String url,
+      @NonNull Map<String, String> headers,
+      byte[] body)
+      throws IOException {
+    Optional<String> cachedETag =
+        cache != null && method.equals("GET") ? cache.getETag(url) : Optional.empty();
+    Map<String, String> allHeaders = new HashMap<>(headers);
+    if (cachedETag.isPresent()) {
+      allHeaders.put("If-None-Match", cachedETag.get());
+    }
+
+    for (int attempt = 0; ; attempt++) {
+      HttpResponse response = send(method, url, allHeaders, body);
+      throttle.update(response);
+      if (isRateLimited(response) && attempt < maxRetries) {
+        if (!throttle.isPaused()) {
+          long backoff = (long) retryBackoff << Math.min(attempt, 16);
+          throttle.pauseFor(backoff);
+          context.debug(method + " " + url + " was rate limited; retrying in " + backoff + "ms");
+        } else {
+          context.debug(method + " " + url + " was rate limited; retrying after the reset");
+        }
+        continue;
+      }
+      if (response.getStatusCode() == HttpURLConnection.HTTP_NOT_MODIFIED
+          && cachedETag.isPresent()) {
+        Optional<HttpResponse> cached = cache.load(url, cachedETag.get());
+        if (cached.isPresent()) {
+          context.debug(method + " " + url + " -> 304 (served from cache)");
+          return cached.get();
+        }
+        // The entry was evicted or replaced after its ETag was sent
+        context.debug(method + " " + url + " -> 304, but the cache entry is gone; retrying");
+        allHeaders.remove("If-None-Match");
+        cachedETag = Optional.empty();
+        continue;
+      }
+      context.debug(method + " " + url + " -> " + response.getStatusCode());
+      Optional<String> etag = response.getHeader("ETag");
+      if (cache != null && method.equals("GET") && response.isSuccessful() && etag.isPresent()) {
+        try {
+          cache.put(url, etag.get(), response);
+        } catch (IOException e) {
+          // The request itself succeeded, so a cache that cannot be written only costs a miss
+          context.debug("Could not cache " + method + " " + url + ": " + e);
+        }
+      }
+      return response;
+    }
+  }
+
+  // -----------------------------------------------------------------------
+  // Pagination
+  // -----------------------------------------------------------------------
+
+  /**
+   * Gets every page of a paginated resource, in order.
+   *
+   * <p>When the first response links to its {@code last} page by page number, the remaining pages
+   * are requested as one concurrent batch, subject to the rate limit throttle. Otherwise the {@code
+   * next} links are followed one at a time.
+   *
+   * @param url the URL of the first page
+   * @return the responses for all pages
+   */
+  public List<HttpResponse> getPages(@NonNull String url) throws IOException {
+    List<HttpResponse> pages = new ArrayList<>();
+    HttpResponse first = get(url);
+    pages.add(first);
+
+    Optional<String> next = first.getLink("next");
+    Optional<Integer> lastPage = first.getLink("last").flatMap(HttpClient::pageNumber);
+    Optional<Integer> nextPage = next.flatMap(HttpClient::pageNumber);
+    if (lastPage.isPresent() && nextPage.isPresent()) {
+      List<String> urls = new ArrayList<>();
+      for (int page = nextPage.get(); page <= lastPage.get(); page++) {
+        urls.add(withPage(next.get(), page));
+      }
+      pages.addAll(getAll(urls));
+      return pages;
+    }
+    while (next.isPresent()) {
+      HttpResponse page = get(next.get());
+      pages.add(page);
+      next = page.getLink("next");
+    }
+    return pages;
+  }
+
+  /**
+   * Gets a batch of URLs concurrently, subject to the rate limit throttle.
+   *
+   * @param urls the URLs to get
+   * @return the responses, in the same order as the URLs
+   */
+  public List<HttpResponse> getAll(@NonNull List<String> urls) throws IOException {
+    if (urls.isEmpty()) {
+      return Collections.emptyList();
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(maxConcurrency, urls.size()));
+    try {
+      List<Future<HttpResponse>> futures = new ArrayList<>();
+      for (String url : urls) {
+        futures.add(executor.submit(() -> get(url)));
+      }
+      List<HttpResponse> responses = new ArrayList<>();
+      for (Future<HttpResponse> future : futures) {
+        responses.add(future.get());
+      }
+      return responses;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for a batch of requests");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  // -----------------------------------------------------------------------
+  // Internals
+  // -----------------------------------------------------------------------
+
+  private HttpResponse send(String method, String url, Map<String, String> headers, byte[] body)
+      throws IOException {
+    try {
+      throttle.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for the rate limit");
+    }
+    try {
+      HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+      connection.setRequestMethod(method);
+      connection.setConnectTimeout(connectTimeout);
+      connection.setReadTimeout(readTimeout);
+      connection.setUseCaches(false);
+      connection.setRequestProperty("User-Agent", userAgent);
+      connection.setRequestProperty("Accept", "application/vnd.github.v3+json");
+      if (StringUtils.isNotBlank(token)) {
+        connection.setRequestProperty("Authorization", "token " + token);
+      }
+      headers.forEach(connection::setRequestProperty);
+      if (body != null) {
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+          out.write(body);
+        }
+      }
+      int statusCode = connection.getResponseCode();
+      InputStream in =
+          statusCode >= 400 ? connection.getErrorStream() : connection.getInputStream();
+      return new HttpResponse(statusCode, connection.getHeaderFields(), readFully(in), false);
+    } finally {
+      throttle.release();
+    }
+  }
+
+  private static boolean isRateLimited(HttpResponse response) {
+    int statusCode = response.getStatusCode();
+    return (statusCode == 403 || statusCode == 429)
+        && (response.getHeader("Retry-After").isPresent()
+            || response.getHeader("X-RateLimit-Remaining").filter("0"::equals).isPresent());
+  }
+
+  // Reads and closes the stream so that the connection is returned to the keep-alive pool
+  private static byte[] readFully(InputStream in) throws IOException {
+    if (in == null) {
+      return new byte[0];
+    }
+    try (InputStream stream = in) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int n;
+      while ((n = stream.read(buffer)) != -1) {
+        out.write(buffer, 0, n);
+      }
+      return out.toByteArray();
+    }
+  }
+
+  private static Optional<Integer> pageNumber(String url) {
+    Matcher matcher = PAGE.matcher(url);
+    return matcher.find() ? Optional.of(Integer.parseInt(matcher.group(2))) : Optional.empty();
+  }
+
+  private static String withPage(String url, int page) {
+    return PAGE.matcher(url).replaceFirst("$1" + page);
+  }
+
+  // -----------------------------------------------------------------------
+  // Builder
+  // -----------------------------------------------------------------------
+
+  /** Builds an {@link HttpClient}. */
+  public static final class Builder {
+
+    private String userAgent = "actions-toolkit-java";
+    private String token;
+    private Path cacheDirectory;
+    private int maxCacheEntries = 1000;
+    private int maxConcurrency = 4;
+    private int maxRetries = 3;
+    private int retryBackoff = 1000;
+    private int connectTimeout = 30_000;
+    private int readTimeout = 30_000;
+
+    private Builder() {}
+
+    /**
+     * Sets the {@code User-Agent} header. Defaults to {@code actions-toolkit-java}.
+     *
+     * @param userAgent the user agent
+     * @return this builder
+     */
+    public Builder userAgent(@NonNull String userAgent) {
+      this.userAgent = userAgent;
+      return this;
+    }
+
+    /**
+     * Sets the token sent in the {@code Authorization} header. The token is registered as a secret
+     * when the client is built.
+     *
+     * @param token the token
+     * @return this builder
+     */
+    public Builder token(@NonNull String token) {
+      this.token = token;
+      return this;
+    }
+
+    /**
+     * Enables the ETag cache. Disabled by default.
+     *
+     * @param cacheDirectory the directory to store cached responses in
+     * @return this builder
+     */
+    public Builder cacheDirectory(@NonNull Path cacheDirectory) {
+      this.cacheDirectory = cacheDirectory;
+      return this;
+    }
+
+    /**
+     * Sets how many responses the ETag cache keeps before evicting the least recently used ones.
+     * Defaults to 1000.
+     *
+     * @param maxCacheEntries the maximum number of entries
+     * @return this builder
+     */
+    public Builder maxCacheEntries(int maxCacheEntries) {
+      this.maxCacheEntries = maxCacheEntries;
+      return this;
+    }
+
+    /**
+     * Sets the most requests that may be in flight at once. Defaults to 4.
+     *
+     * @param maxConcurrency the maximum number of concurrent requests
+     * @return this builder
+     */
+    public Builder maxConcurrency(int maxConcurrency) {
+      this.maxConcurrency = maxConcurrency;
+      return this;
+    }
+
+    /**
+     * Sets how many times a rate-limited request is retried. Defaults to 3.
+     *
+     * @param maxRetries the maximum number of retries
+     * @return this builder
+     */
+    public Builder maxRetries(int maxRetries) {
+      this.maxRetries = maxRetries;
+      return this;
+    }
+
+    /**
+     * Sets the delay before the first retry of a rate-limited request whose response does not say
+     * when the limit resets. The delay doubles with every further retry. Defaults to 1 second.
+     *
+     * @param retryBackoff the initial delay in milliseconds
+     * @return this builder
+     */
+    public Builder retryBackoff(int retryBackoff) {
+      this.retryBackoff = retryBackoff;
+      return this;
+    }
+
+    /**
+     * Sets the connect and read timeouts. Both default to 30 seconds.
+     *
+     * @param connectTimeout the connect timeout in milliseconds
+     * @param readTimeout the read timeout in milliseconds
+     * @return this builder
+     */
+    public Builder timeouts(int connectTimeout, int readTimeout) {
+      this.connectTimeout = connectTimeout;
+      this.readTimeout = readTimeout;
+      return this;
+    }
+
+    /**
+     * Builds the client. Tracing and secret registration go to the {@link ActionContext} that is
+     * current when this is called.
+     *
+     * @return the client
+     */
+    public HttpClient build() throws IOException {
+      return new HttpClient(this);
+    }
+  }
+}
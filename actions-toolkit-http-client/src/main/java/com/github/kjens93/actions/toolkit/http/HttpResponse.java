@@ -0,0 +1,83 @@
+package com.github.kjens93.actions.toolkit.http;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/** A fully read HTTP response. */
+@Getter
+public final class HttpResponse {
+
+  private static final Pattern LINK = Pattern.compile("<([^>]*)>\\s*;\\s*rel=\"([^\"]*)\"");
+
+  private final int statusCode;
+  private final Map<String, List<String>> headers;
+  private final byte[] body;
+
+  /** Whether the body was served from the ETag cache after a {@code 304 Not Modified} */
+  private final boolean cached;
+
+  HttpResponse(int statusCode, Map<String, List<String>> headers, byte[] body, boolean cached) {
+    Map<String, List<String>> copy = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    headers.forEach(
+        (name, values) -> {
+          if (name != null) {
+            copy.put(name, Collections.unmodifiableList(values));
+          }
+        });
+    this.statusCode = statusCode;
+    this.headers = Collections.unmodifiableMap(copy);
+    this.body = body;
+    this.cached = cached;
+  }
+
+  /**
+   * Gets the first value of a header. Header names are case-insensitive.
+   *
+   * @param name name of the header
+   * @return the value, or empty if the header is not present
+   */
+  public Optional<String> getHeader(@NonNull String name) {
+    return Optional.ofNullable(headers.get(name))
+        .filter(values -> !values.isEmpty())
+        .map(values -> values.get(0));
+  }
+
+  /**
+   * Gets the target of a relation in the {@code Link} header, as used for pagination.
+   *
+   * @param rel the relation, such as {@code next} or {@code last}
+   * @return the URL, or empty if there is no such relation
+   */
+  public Optional<String> getLink(@NonNull String rel) {
+    Matcher matcher = LINK.matcher(getHeader("Link").orElse(""));
+    while (matcher.find()) {
+      if (matcher.group(2).equals(rel)) {
+        return Optional.of(matcher.group(1));
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Reads the body as UTF-8 text.
+   *
+   * @return string
+   */
+  public String readBody() {
+    return new String(body, StandardCharsets.UTF_8);
+  }
+
+  /** Gets whether the status code is in the 2xx range. */
+  public boolean isSuccessful() {
+    return statusCode >= 200 && statusCode < 300;
+  }
+}
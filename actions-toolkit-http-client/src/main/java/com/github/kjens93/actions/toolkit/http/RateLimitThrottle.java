@@ -0,0 +1,114 @@
+package com.github.kjens93.actions.toolkit.http;
+
+import lombok.NonNull;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+
+/**
+ * Limits the number of requests in flight, driven by the rate limit headers of past responses.
+ *
+ * <p>Concurrency starts at the configured maximum and shrinks to one request for every {@value
+ * #REQUESTS_PER_SLOT} requests left in the window, down to serial requests. Once the window is
+ * exhausted, or a response carries {@code Retry-After} (in seconds or as an HTTP date), new
+ * requests wait until the limit resets.
+ */
+final class RateLimitThrottle {
+
+  static final int REQUESTS_PER_SLOT = 100;
+
+  private final int maxConcurrency;
+  private int allowed;
+  private int inFlight;
+  private long resumeAt;
+
+  RateLimitThrottle(int maxConcurrency) {
+    if (maxConcurrency < 1) {
+      throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+    }
+    this.maxConcurrency = maxConcurrency;
+    this.allowed = maxConcurrency;
+  }
+
+  /** Waits until a request may be sent. Every call must be paired with {@link #release()}. */
+  synchronized void acquire() throws InterruptedException {
+    while (true) {
+      long delay = resumeAt - System.currentTimeMillis();
+      if (delay > 0) {
+        wait(delay);
+      } else if (inFlight < allowed) {
+        inFlight++;
+        return;
+      } else {
+        wait();
+      }
+    }
+  }
+
+  /** Marks a request as finished. */
+  synchronized void release() {
+    inFlight--;
+    notifyAll();
+  }
+
+  /**
+   * Adjusts the throttle to the {@code X-RateLimit-*} and {@code Retry-After} headers of a
+   * response.
+   *
+   * @param response the response to learn from
+   */
+  synchronized void update(@NonNull HttpResponse response) {
+    long now = System.currentTimeMillis();
+    int remaining = response.getHeader("X-RateLimit-Remaining").map(NumberUtils::toInt).orElse(-1);
+    if (remaining >= 0) {
+      allowed = Math.max(1, Math.min(maxConcurrency, remaining / REQUESTS_PER_SLOT));
+      if (remaining == 0) {
+        response
+            .getHeader("X-RateLimit-Reset")
+            .map(NumberUtils::toLong)
+            .ifPresent(reset -> resumeAt = Math.max(resumeAt, reset * 1000));
+      }
+    }
+    response
+        .getHeader("Retry-After")
+        .flatMap(value -> retryAt(value, now))
+        .ifPresent(at -> resumeAt = Math.max(resumeAt, at));
+    notifyAll();
+  }
+
+  /**
+   * Holds back new requests for at least the given time.
+   *
+   * @param millis how long to wait, in milliseconds
+   */
+  synchronized void pauseFor(long millis) {
+    resumeAt = Math.max(resumeAt, System.currentTimeMillis() + millis);
+    notifyAll();
+  }
+
+  /** Gets whether new requests are currently held back until a known time. */
+  synchronized boolean isPaused() {
+    return resumeAt > System.currentTimeMillis();
+  }
+
+  // Retry-After is either a number of seconds or an HTTP date
+  private static Optional<Long> retryAt(String value, long now) {
+    if (NumberUtils.isDigits(value)) {
+      return Optional.of(now + NumberUtils.toLong(value) * 1000);
+    }
+    try {
+      ZonedDateTime date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+      return Optional.of(date.toInstant().toEpochMilli());
+    } catch (DateTimeParseException e) {
+      return Optional.empty();
+    }
+  }
+
+  /** Gets the number of requests currently allowed in flight. */
+  synchronized int getAllowed() {
+    return allowed;
+  }
+}
@@ -0,0 +1,132 @@
+package com.github.kjens93.actions.toolkit.http;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ETagCacheTests {
+
+  @Rule public final TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void entries_round_trip_through_disk() throws IOException {
+    Path dir = tmp.getRoot().toPath();
+    new ETagCache(dir, 10).put("https://api.github.com/a", "\"etag-a\"", response("body a"));
+
+    ETagCache cache = new ETagCache(dir, 10);
+    assertThat(cache.getETag("https://api.github.com/a")).hasValue("\"etag-a\"");
+    HttpResponse response = cache.load("https://api.github.com/a", "\"etag-a\"").get();
+
+    assertThat(response.readBody()).isEqualTo("body a");
+    assertThat(response.getHeader("content-type")).hasValue("application/json");
+    assertThat(response.isCached()).isTrue();
+  }
+
+  @Test
+  public void least_recently_used_entries_are_evicted() throws IOException {
+    ETagCache cache = new ETagCache(tmp.getRoot().toPath(), 2);
+    cache.put("https://api.github.com/a", "a", response("a"));
+    cache.put("https://api.github.com/b", "b", response("b"));
+    cache.getETag("https://api.github.com/a");
+    cache.put("https://api.github.com/c", "c", response("c"));
+
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.getETag("https://api.github.com/a")).isPresent();
+    assertThat(cache.getETag("https://api.github.com/b")).isEmpty();
+    assertThat(cache.getETag("https://api.github.com/c")).isPresent();
+    assertThat(tmp.getRoot().list()).hasSize(2);
+  }
+
+  @Test
+  public void missing_entries_are_empty() throws IOException {
+    ETagCache cache = new ETagCache(tmp.getRoot().toPath(), 2);
+    assertThat(cache.getETag("https://api.github.com/a")).isEmpty();
+    assertThat(cache.load("https://api.github.com/a", "a")).isEmpty();
+  }
+
+  @Test
+  public void unreadable_entries_are_misses_and_are_deleted() throws IOException {
+    Path dir = tmp.getRoot().toPath();
+    ETagCache cache = new ETagCache(dir, 10);
+    cache.put("https://api.github.com/a", "a", response("a"));
+    Path file;
+    try (Stream<Path> files = Files.list(dir)) {
+      file = files.findFirst().get();
+    }
+    byte[] bytes = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+
+    assertThat(cache.getETag("https://api.github.com/a")).hasValue("a");
+    assertThat(cache.load("https://api.github.com/a", "a")).isEmpty();
+    assertThat(cache.size()).isEqualTo(0);
+    assertThat(file).doesNotExist();
+  }
+
+  @Test
+  public void known_etags_are_looked_up_without_reading_the_entry() throws IOException {
+    Path dir = tmp.getRoot().toPath();
+    ETagCache cache = new ETagCache(dir, 10);
+    cache.put("https://api.github.com/a", "a", response("a"));
+    try (Stream<Path> files = Files.list(dir)) {
+      Files.delete(files.findFirst().get());
+    }
+
+    assertThat(cache.getETag("https://api.github.com/a")).hasValue("a");
+    assertThat(cache.load("https://api.github.com/a", "a")).isEmpty();
+  }
+
+  @Test
+  public void entries_are_not_loaded_for_a_different_etag() throws IOException {
+    ETagCache cache = new ETagCache(tmp.getRoot().toPath(), 10);
+    cache.put("https://api.github.com/a", "a", response("a"));
+
+    assertThat(cache.load("https://api.github.com/a", "b")).isEmpty();
+    assertThat(cache.load("https://api.github.com/a", "a")).isPresent();
+  }
+
+  @Test
+  public void failed_writes_leave_nothing_behind() throws IOException {
+    ETagCache cache = new ETagCache(tmp.getRoot().toPath(), 10);
+    String etag = StringUtils.repeat('x', 70_000);
+
+    assertThatThrownBy(() -> cache.put("https://api.github.com/a", etag, response("a")))
+        .isInstanceOf(UTFDataFormatException.class);
+    assertThat(cache.size()).isEqualTo(0);
+    assertThat(tmp.getRoot().list()).isEmpty();
+  }
+
+  @Test
+  public void stale_temp_files_are_deleted_when_the_cache_opens() throws IOException {
+    Path dir = tmp.getRoot().toPath();
+    Path stale = Files.createFile(dir.resolve("abc.etag123.tmp"));
+    Files.setLastModifiedTime(stale, FileTime.fromMillis(0));
+    Path fresh = Files.createFile(dir.resolve("def.etag456.tmp"));
+
+    new ETagCache(dir, 10);
+
+    assertThat(stale).doesNotExist();
+    assertThat(fresh).exists();
+  }
+
+  private static HttpResponse response(String body) {
+    Map<String, List<String>> headers =
+        Collections.singletonMap("Content-Type", Collections.singletonList("application/json"));
+    return new HttpResponse(200, headers, body.getBytes(StandardCharsets.UTF_8), false);
+  }
+}
@@ -0,0 +1,286 @@
+package com.github.kjens93.actions.toolkit.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.contrib.java.lang.system.SystemOutRule;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HttpClientTests {
+
+  @Rule public final SystemOutRule out = new SystemOutRule().enableLog();
+
+  @Rule public final TemporaryFolder tmp = new TemporaryFolder();
+
+  private final Map<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger maxInFlight = new AtomicInteger();
+  private HttpServer server;
+  private String baseUrl;
+
+  @Before
+  public void setup() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.createContext(
+        "/repo",
+        exchange -> {
+          count(exchange);
+          if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            respond(exchange, 304, "");
+          } else {
+            exchange.getResponseHeaders().add("ETag", "\"v1\"");
+            respond(exchange, 200, "{\"name\":\"hello-world\"}");
+          }
+        });
+    server.createContext(
+        "/issues",
+        exchange -> {
+          count(exchange);
+          String query = exchange.getRequestURI().getQuery();
+          int page = query == null ? 1 : Integer.parseInt(query.replace("page=", ""));
+          if (page == 1) {
+            exchange
+                .getResponseHeaders()
+                .add(
+                    "Link",
+                    "<" + baseUrl + "/issues?page=2>; rel=\"next\", "
+                        + "<" + baseUrl + "/issues?page=5>; rel=\"last\"");
+          }
+          respond(exchange, 200, "page " + page);
+        });
+    server.createContext(
+        "/commits",
+        exchange -> {
+          count(exchange);
+          String query = exchange.getRequestURI().getQuery();
+          if (query == null) {
+            exchange
+                .getResponseHeaders()
+                .add("Link", "<" + baseUrl + "/commits?cursor=abc>; rel=\"next\"");
+            respond(exchange, 200, "first");
+          } else {
+            respond(exchange, 200, "second");
+          }
+        });
+    server.createContext(
+        "/limited",
+        exchange -> {
+          if (count(exchange) == 1) {
+            exchange.getResponseHeaders().add("Retry-After", "1");
+            respond(exchange, 403, "secondary rate limit");
+          } else {
+            respond(exchange, 200, "ok");
+          }
+        });
+    server.createContext(
+        "/exhausted",
+        exchange -> {
+          if (count(exchange) <= 2) {
+            exchange.getResponseHeaders().add("X-RateLimit-Remaining", "0");
+            respond(exchange, 403, "rate limit exceeded");
+          } else {
+            respond(exchange, 200, "ok");
+          }
+        });
+    server.createContext(
+        "/auth",
+        exchange -> {
+          count(exchange);
+          respond(exchange, 200, exchange.getRequestHeaders().getFirst("Authorization"));
+        });
+    server.start();
+    baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+  }
+
+  @After
+  public void teardown() {
+    server.stop(0);
+    out.clearLog();
+  }
+
+  @Test
+  public void get_reads_the_response() throws IOException {
+    HttpClient client = HttpClient.builder().build();
+    HttpResponse response = client.get(baseUrl + "/repo");
+    assertThat(response.getStatusCode()).isEqualTo(200);
+    assertThat(response.getHeader("etag")).hasValue("\"v1\"");
+    assertThat(response.readBody()).isEqualTo("{\"name\":\"hello-world\"}");
+    assertThat(response.isCached()).isFalse();
+  }
+
+  @Test
+  public void not_modified_responses_are_served_from_the_etag_cache() throws IOException {
+    HttpClient client = HttpClient.builder().cacheDirectory(tmp.getRoot().toPath()).build();
+    client.get(baseUrl + "/repo");
+
+    // A fresh client reuses the cache on disk
+    HttpClient other = HttpClient.builder().cacheDirectory(tmp.getRoot().toPath()).build();
+    HttpResponse response = other.get(baseUrl + "/repo");
+
+    assertThat(hits.get("/repo").get()).isEqualTo(2);
+    assertThat(response.isCached()).isTrue();
+    assertThat(response.getStatusCode()).isEqualTo(200);
+    assertThat(response.readBody()).isEqualTo("{\"name\":\"hello-world\"}");
+    assertThat(out.getLog())
+        .contains("::debug::GET " + baseUrl + "/repo -> 304 (served from cache)");
+  }
+
+  @Test
+  public void requests_are_repeated_when_the_cached_body_is_gone() throws IOException {
+    Path dir = tmp.getRoot().toPath();
+    HttpClient client = HttpClient.builder().cacheDirectory(dir).build();
+    client.get(baseUrl + "/repo");
+    try (Stream<Path> files = Files.list(dir)) {
+      Files.delete(files.findFirst().get());
+    }
+
+    HttpResponse response = client.get(baseUrl + "/repo");
+
+    assertThat(hits.get("/repo").get()).isEqualTo(3);
+    assertThat(response.isCached()).isFalse();
+    assertThat(response.readBody()).isEqualTo("{\"name\":\"hello-world\"}");
+  }
+
+  @Test
+  public void responses_are_returned_when_the_cache_cannot_be_written() throws IOException {
+    Path dir = tmp.newFolder("cache").toPath();
+    HttpClient client = HttpClient.builder().cacheDirectory(dir).build();
+    // Permissions do not stop every user, so the directory is replaced by a file instead
+    Files.delete(dir);
+    Files.createFile(dir);
+
+    HttpResponse response = client.get(baseUrl + "/repo");
+
+    assertThat(response.getStatusCode()).isEqualTo(200);
+    assertThat(response.readBody()).isEqualTo("{\"name\":\"hello-world\"}");
+    assertThat(out.getLog()).contains("::debug::Could not cache GET " + baseUrl + "/repo");
+  }
+
+  @Test
+  public void getPages_batches_numbered_pages() throws IOException {
+    HttpClient client = HttpClient.builder().maxConcurrency(2).build();
+    List<HttpResponse> pages = client.getPages(baseUrl + "/issues");
+
+    assertThat(pages.stream().map(HttpResponse::readBody).collect(Collectors.toList()))
+        .containsExactly("page 1", "page 2", "page 3", "page 4", "page 5");
+    assertThat(maxInFlight.get()).isLessThanOrEqualTo(2);
+  }
+
+  @Test
+  public void getPages_follows_next_links() throws IOException {
+    HttpClient client = HttpClient.builder().build();
+    List<HttpResponse> pages = client.getPages(baseUrl + "/commits");
+
+    assertThat(pages.stream().map(HttpResponse::readBody).collect(Collectors.toList()))
+        .containsExactly("first", "second");
+  }
+
+  @Test
+  public void rate_limited_requests_are_retried_after_the_limit_resets() throws IOException {
+    HttpClient client = HttpClient.builder().build();
+    long start = System.currentTimeMillis();
+    HttpResponse response = client.get(baseUrl + "/limited");
+
+    assertThat(response.readBody()).isEqualTo("ok");
+    assertThat(hits.get("/limited").get()).isEqualTo(2);
+    assertThat(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(900);
+  }
+
+  @Test
+  public void rate_limited_requests_without_a_reset_time_back_off_exponentially()
+      throws IOException {
+    HttpClient client = HttpClient.builder().retryBackoff(200).build();
+    long start = System.currentTimeMillis();
+    HttpResponse response = client.get(baseUrl + "/exhausted");
+
+    assertThat(response.readBody()).isEqualTo("ok");
+    assertThat(hits.get("/exhausted").get()).isEqualTo(3);
+    assertThat(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(200 + 400);
+    assertThat(out.getLog()).contains("retrying in 200ms", "retrying in 400ms");
+  }
+
+  @Test
+  public void throttle_understands_http_date_retry_after() {
+    RateLimitThrottle throttle = new RateLimitThrottle(4);
+    String date =
+        DateTimeFormatter.RFC_1123_DATE_TIME.format(
+            ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(30));
+    throttle.update(response("Retry-After", date));
+    assertThat(throttle.isPaused()).isTrue();
+
+    RateLimitThrottle other = new RateLimitThrottle(4);
+    other.update(response("Retry-After", "not a date"));
+    assertThat(other.isPaused()).isFalse();
+  }
+
+  @Test
+  public void token_is_sent_and_masked() throws IOException {
+    HttpClient client = HttpClient.builder().token("s3cr3t").build();
+    HttpResponse response = client.get(baseUrl + "/auth");
+
+    assertThat(response.readBody()).isEqualTo("token s3cr3t");
+    assertThat(out.getLog()).startsWith("::add-mask::s3cr3t");
+  }
+
+  @Test
+  public void throttle_follows_the_rate_limit_headers() throws IOException {
+    RateLimitThrottle throttle = new RateLimitThrottle(8);
+    throttle.update(response("X-RateLimit-Remaining", "5000"));
+    assertThat(throttle.getAllowed()).isEqualTo(8);
+    throttle.update(response("X-RateLimit-Remaining", "350"));
+    assertThat(throttle.getAllowed()).isEqualTo(3);
+    throttle.update(response("X-RateLimit-Remaining", "12"));
+    assertThat(throttle.getAllowed()).isEqualTo(1);
+  }
+
+  private static HttpResponse response(String header, String value) {
+    Map<String, List<String>> headers = new ConcurrentHashMap<>();
+    headers.put(header, Collections.singletonList(value));
+    return new HttpResponse(200, headers, new byte[0], false);
+  }
+
+  private int count(HttpExchange exchange) {
+    int current = inFlight.incrementAndGet();
+    maxInFlight.accumulateAndGet(current, Math::max);
+    try {
+      Thread.sleep(20);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    inFlight.decrementAndGet();
+    return hits.computeIfAbsent(exchange.getHttpContext().getPath(), path -> new AtomicInteger())
+        .incrementAndGet();
+  }
+
+  private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+    try (OutputStream os = exchange.getResponseBody()) {
+      os.write(bytes);
+    }
+  }
+}